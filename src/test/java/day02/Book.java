@@ -13,10 +13,9 @@ public class Book {
     {
         System.out.println("Instance initializer block");
     }
-    //static block - runs once before everything else
-    static {
-        System.out.println("static initializer block");
-    }
+    //static block - static { ... } runs once when the class is loaded, before everything else.
+    //Book needs none: static fields already start at 0/null. Keep such blocks side-effect free
+    //(no printing, no I/O), they run on every startup that touches the class.
 
     //no-args constructor
     public Book() {
@@ -0,0 +1,127 @@
+package day02;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+//Columnar version of Car for bulk loads: instead of millions of Car objects
+//we keep one model dictionary + one primitive array per field.
+//row i -> models.get(modelCodes[i]), prices[i]
+public class CarBatch {
+    //rows per parallel partition, multiple of 64 so every partition owns whole bitmap words
+    static final int PARTITION_SIZE = 64 * 1024;
+
+    //model dictionary: code -> model and model -> code
+    private final List<String> models = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private int[] modelCodes;
+    private double[] prices;
+    private int size;
+
+    public CarBatch() {
+        this(16);
+    }
+
+    public CarBatch(int capacity) {
+        modelCodes = new int[Math.max(capacity, 1)];
+        prices = new double[Math.max(capacity, 1)];
+    }
+
+    //same as new Car(model): price starts at 0.0, returns the row number
+    public int add(String model) {
+        if (size == prices.length) {
+            modelCodes = Arrays.copyOf(modelCodes, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+        }
+        Integer code = codes.get(model);
+        if (code == null) {
+            code = models.size();
+            models.add(model);
+            codes.put(model, code);
+        }
+        modelCodes[size] = code;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //number of distinct models in the dictionary
+    public int modelCount() {
+        return models.size();
+    }
+
+    public String getModel(int row) {
+        return models.get(modelCodes[checkRow(row)]);
+    }
+
+    public double getPrice(int row) {
+        return prices[checkRow(row)];
+    }
+
+    public Car toCar(int row) {
+        Car car = new Car(getModel(row));
+        car.setPrice(prices[row]); // always valid, invalid prices are never stored
+        return car;
+    }
+
+    public BitSet applyPrices(double[] newPrices) {
+        return applyPrices(newPrices, false);
+    }
+
+    /*
+    Bulk version of Car.setPrice: newPrices[i] goes to row i.
+    Negative prices are rejected exactly like setPrice (price < 0), the old price is kept
+    and bit i is set in the returned error bitmap. Nothing is thrown for bad rows.
+     */
+    public BitSet applyPrices(double[] newPrices, boolean parallel) {
+        return BitSet.valueOf(applyPricesBits(newPrices, parallel));
+    }
+
+    //raw bitmap: bit (i % 64) of word (i / 64) is set when row i was rejected
+    public long[] applyPricesBits(double[] newPrices, boolean parallel) {
+        if (newPrices.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " prices but got " + newPrices.length);
+        }
+        long[] errors = new long[(size + 63) >>> 6];
+        int partitions = (size + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        if (parallel && partitions > 1) {
+            IntStream.range(0, partitions).parallel().forEach(p -> applyRange(newPrices, errors, p));
+        } else {
+            for (int p = 0; p < partitions; p++) {
+                applyRange(newPrices, errors, p);
+            }
+        }
+        return errors;
+    }
+
+    /*
+    Branch-free: a bad row costs no misprediction. The error bits of each 64-row block are
+    collected in a local word and stored once, so the loop doesn't read and write errors[] every row.
+    Partitions are a multiple of 64 rows, so parallel partitions never share a word.
+     */
+    private void applyRange(double[] newPrices, long[] errors, int partition) {
+        int from = partition * PARTITION_SIZE;
+        int to = Math.min(from + PARTITION_SIZE, size);
+        double[] prices = this.prices;
+        for (int block = from; block < to; block += 64) {
+            int end = Math.min(block + 64, to);
+            long word = 0;
+            for (int i = block; i < end; i++) {
+                double price = newPrices[i];
+                boolean negative = price < 0;
+                prices[i] = negative ? prices[i] : price;
+                word |= (negative ? 1L : 0L) << i; // shift uses i % 64
+            }
+            errors[block >>> 6] = word;
+        }
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,67 @@
+package day02;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class CarBatchTest {
+
+    @Test
+    public void sameResultsAsSetPrice() {
+        int size = 3 * CarBatch.PARTITION_SIZE + 17; // several partitions + a partial word
+        String[] models = {"Toyota", "Honda", "BMW", "Tesla"};
+        Random random = new Random(42);
+
+        CarBatch batch = new CarBatch();
+        Car[] cars = new Car[size];
+        double[] newPrices = new double[size];
+        for (int i = 0; i < size; i++) {
+            String model = models[random.nextInt(models.length)];
+            batch.add(model);
+            cars[i] = new Car(model);
+            newPrices[i] = switch (random.nextInt(6)) {
+                case 0 -> -random.nextDouble() * 1000;
+                case 1 -> -0.0;
+                case 2 -> Double.NaN;
+                default -> random.nextDouble() * 50000;
+            };
+        }
+
+        BitSet expected = new BitSet();
+        for (int i = 0; i < size; i++) {
+            try {
+                cars[i].setPrice(newPrices[i]);
+            } catch (RuntimeException e) {
+                expected.set(i);
+            }
+        }
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            BitSet errors = batch.applyPrices(newPrices, parallel);
+            Assertions.assertEquals(expected, errors);
+            for (int i = 0; i < size; i++) {
+                Assertions.assertEquals(cars[i].getPrice(), batch.getPrice(i));
+                Assertions.assertEquals(cars[i].getModel(), batch.getModel(i));
+            }
+        }
+        Assertions.assertEquals(models.length, batch.modelCount());
+    }
+
+    @Test
+    public void rejectedRowKeepsOldPrice() {
+        CarBatch batch = new CarBatch();
+        batch.add("Toyota");
+        batch.add("Honda");
+        batch.applyPrices(new double[]{20000, 30000});
+
+        BitSet errors = batch.applyPrices(new double[]{-1, 31000});
+        Assertions.assertTrue(errors.get(0));
+        Assertions.assertFalse(errors.get(1));
+        Assertions.assertEquals(20000, batch.getPrice(0));
+        Assertions.assertEquals(31000, batch.toCar(1).getPrice());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.applyPrices(new double[]{1}));
+    }
+}
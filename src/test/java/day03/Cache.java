@@ -0,0 +1,35 @@
+package day03;
+
+import java.util.function.Function;
+
+//Common interface for LruCache (single thread) and SegmentedLruCache (many threads)
+public interface Cache<K, V> {
+
+    //null when missing or expired, counts as a hit or a miss
+    V get(K key);
+
+    void put(K key, V value);
+
+    //get, or compute + put on a miss. null results are not cached
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    void remove(K key);
+
+    int size();
+
+    CacheStats stats();
+
+    //wraps any String utility, e.g. memoize(StringFrequency::encode2, new LruCache<>(1000))
+    static <R> Function<String, R> memoize(Function<String, R> function, Cache<String, R> cache) {
+        return key -> cache.computeIfAbsent(key, function);
+    }
+}
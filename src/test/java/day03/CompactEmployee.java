@@ -0,0 +1,83 @@
+package day03;
+
+//Employee with the name kept as CompactName bits: one 24-byte object instead of Employee + String + byte[]
+public class CompactEmployee implements Comparable<CompactEmployee> {
+    final int id;
+    final long name;
+
+    public CompactEmployee(int id, String name) {
+        this.id = id;
+        this.name = CompactName.encode(name);
+    }
+
+    public static CompactEmployee of(Employee employee) {
+        return new CompactEmployee(employee.id, employee.name);
+    }
+
+    public Employee toEmployee() {
+        return new Employee(id, CompactName.toString(name));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public CompactName getName() {
+        return CompactName.ofBits(name);
+    }
+
+    //same order as Employee.compareTo (by name), without creating a String
+    @Override
+    public int compareTo(CompactEmployee other) {
+        return CompactName.compare(this.name, other.name);
+    }
+
+    @Override
+    public String toString() {
+        return id + " - " + CompactName.toString(name);
+    }
+
+    /*
+    Heap comparison: args [count] [--wait]. Names are created like a loader would (new String per row).
+    With --wait the JVM pauses after each phase so you can run: jmap -histo:live <pid> | head -20
+     */
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        boolean wait = args.length > 1 && args[1].equals("--wait");
+        String[] first = {"Alice", "Bob", "Charlie", "Dana", "Evan", "Fatima", "Guo", "Hiroshi", "Ines", "Jamal"};
+
+        long before = usedHeap();
+        Employee[] employees = new Employee[n];
+        for (int i = 0; i < n; i++) {
+            String name = first[i % first.length] + (i % 1000 == 0 ? " Alexander-Smith" : "");
+            employees[i] = new Employee(i, new String(name.toCharArray()));
+        }
+        long employeeBytes = usedHeap() - before;
+        System.out.printf("Employee:        %,d bytes (%.1f per employee)%n", employeeBytes, (double) employeeBytes / n);
+        pause(wait);
+
+        before = usedHeap();
+        CompactEmployee[] compact = new CompactEmployee[n];
+        for (int i = 0; i < n; i++) {
+            compact[i] = of(employees[i]);
+        }
+        long compactBytes = usedHeap() - before;
+        System.out.printf("CompactEmployee: %,d bytes (%.1f per employee), dictionary size %d%n",
+                compactBytes, (double) compactBytes / n, StringDictionary.GLOBAL.size());
+        pause(wait);
+        System.out.println(employees[n - 1] + " / " + compact[n - 1]);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void pause(boolean wait) throws Exception {
+        if (wait) {
+            System.out.println("pid " + ProcessHandle.current().pid() + ", press Enter to continue");
+            System.in.read();
+        }
+    }
+}
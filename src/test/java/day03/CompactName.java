@@ -0,0 +1,140 @@
+package day03;
+
+/*
+A name stored in one long instead of a String object (+ its byte[]):
+ - up to 8 ASCII chars (1..127) are packed inline, first char in the highest byte -> bits >= 0
+ - anything else is a StringDictionary.GLOBAL code with the sign bit set           -> bits < 0
+Two packed names compare with a single Long.compare because the unused low bytes are 0,
+which sorts "Al" before "Alice" exactly like String.compareTo.
+The static methods work on the raw long so CompactEmployee can compare names without any object;
+CompactName itself is a CharSequence view for code that wants one.
+ */
+public final class CompactName implements CharSequence, Comparable<CompactName> {
+    private static final long DICTIONARY = Long.MIN_VALUE;
+
+    private final long bits;
+
+    private CompactName(long bits) {
+        this.bits = bits;
+    }
+
+    public static CompactName of(String s) {
+        return new CompactName(encode(s));
+    }
+
+    public static CompactName ofBits(long bits) {
+        return new CompactName(bits);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    public static long encode(String s) {
+        if (s.length() <= 8) {
+            long packed = 0;
+            int i = 0;
+            for (; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == 0 || c > 127) break;
+                packed |= (long) c << (56 - 8 * i);
+            }
+            if (i == s.length()) {
+                return packed;
+            }
+        }
+        return DICTIONARY | StringDictionary.GLOBAL.code(s);
+    }
+
+    public static int length(long bits) {
+        if (bits < 0) return dictionaryString(bits).length();
+        return (64 - Long.numberOfTrailingZeros(bits) + 7) / 8;
+    }
+
+    public static char charAt(long bits, int index) {
+        if (bits < 0) return dictionaryString(bits).charAt(index);
+        if (index < 0 || index >= length(bits)) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length(bits));
+        }
+        return (char) ((bits >>> (56 - 8 * index)) & 0x7F);
+    }
+
+    //same sign as a.toString().compareTo(b.toString())
+    public static int compare(long a, long b) {
+        if (a >= 0 && b >= 0) {
+            return Long.compare(a, b);
+        }
+        if (a == b) {
+            return 0;
+        }
+        int lengthA = length(a);
+        int lengthB = length(b);
+        for (int i = 0, n = Math.min(lengthA, lengthB); i < n; i++) {
+            char ca = charAt(a, i);
+            char cb = charAt(b, i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    //same value as toString().hashCode()
+    public static int hashCode(long bits) {
+        if (bits < 0) return dictionaryString(bits).hashCode();
+        int h = 0;
+        for (int i = 0, n = length(bits); i < n; i++) {
+            h = 31 * h + charAt(bits, i);
+        }
+        return h;
+    }
+
+    public static String toString(long bits) {
+        if (bits < 0) return dictionaryString(bits);
+        char[] chars = new char[length(bits)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = charAt(bits, i);
+        }
+        return new String(chars);
+    }
+
+    private static String dictionaryString(long bits) {
+        return StringDictionary.GLOBAL.valueOf((int) bits);
+    }
+
+    @Override
+    public int length() {
+        return length(bits);
+    }
+
+    @Override
+    public char charAt(int index) {
+        return charAt(bits, index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public int compareTo(CompactName other) {
+        return compare(bits, other.bits);
+    }
+
+    //a string always gets the same encoding, so equal bits <-> equal names
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompactName && ((CompactName) o).bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return toString(bits);
+    }
+}
@@ -0,0 +1,72 @@
+package day03;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class CompactNameTest {
+
+    private static final String CHARS = "AaBbZz @~\u0001é中";
+
+    private List<String> randomNames() {
+        Random random = new Random(5);
+        List<String> names = new ArrayList<>(List.of("", "A", "Al", "Alice", "Alice1234", "Alice123", "Bob", "Charlie"));
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int len = random.nextInt(11); len > 0; len--) {
+                //mostly ASCII so that most names pack inline
+                name.append(random.nextInt(10) == 0 ? CHARS.charAt(random.nextInt(CHARS.length()))
+                        : (char) ('a' + random.nextInt(3)));
+            }
+            names.add(name.toString());
+        }
+        return names;
+    }
+
+    @Test
+    public void behavesLikeString() {
+        List<String> names = randomNames();
+        for (String a : names) {
+            CompactName ca = CompactName.of(a);
+            Assertions.assertEquals(a, ca.toString());
+            Assertions.assertEquals(a.length(), ca.length());
+            Assertions.assertEquals(a.hashCode(), ca.hashCode());
+            Assertions.assertEquals(0, CharSequence.compare(a, ca));
+            Assertions.assertEquals(CompactName.of(a), ca);
+        }
+        for (int i = 0; i < names.size(); i++) {
+            String a = names.get(i);
+            String b = names.get((i * 7 + 3) % names.size());
+            Assertions.assertEquals(Integer.signum(a.compareTo(b)),
+                    Integer.signum(CompactName.of(a).compareTo(CompactName.of(b))), a + " vs " + b);
+            Assertions.assertEquals(a.equals(b), CompactName.of(a).equals(CompactName.of(b)));
+        }
+    }
+
+    @Test
+    public void shortAsciiIsInlineOthersUseDictionary() {
+        Assertions.assertTrue(CompactName.of("Charlie").bits() >= 0);
+        Assertions.assertTrue(CompactName.of("Alexander").bits() < 0);   // 9 chars
+        Assertions.assertTrue(CompactName.of("Émile").bits() < 0);       // not ASCII
+        Assertions.assertEquals(CompactName.of("Alexander").bits(), CompactName.of("Alexander").bits());
+        Assertions.assertEquals("lic", CompactName.of("Alice").subSequence(1, 4).toString());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> CompactName.of("Bob").charAt(3));
+    }
+
+    @Test
+    public void compactEmployeesSortLikeEmployees() {
+        List<Employee> employees = new ArrayList<>();
+        List<String> names = randomNames();
+        for (int i = 0; i < names.size(); i++) {
+            employees.add(new Employee(i, names.get(i)));
+        }
+        List<CompactEmployee> compact = new ArrayList<>();
+        employees.forEach(e -> compact.add(CompactEmployee.of(e)));
+
+        Collections.sort(employees);
+        Collections.sort(compact);
+        Assertions.assertEquals(employees.toString(), compact.toString());
+        Assertions.assertEquals(employees.get(5).toString(), compact.get(5).toEmployee().toString());
+    }
+}
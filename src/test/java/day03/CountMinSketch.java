@@ -0,0 +1,72 @@
+package day03;
+
+/*
+Count-min sketch: approximate counts in fixed memory.
+depth rows of width counters, every key adds to one counter per row and the estimate is the
+smallest of them, so it can overestimate (hash collisions) but never underestimates.
+Keys are passed as 64-bit hashes so callers can hash without creating objects.
+ */
+public class CountMinSketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final long[] counters;
+    private final int width;
+
+    //width is rounded up to a power of two
+    public CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width - 1) << 1);
+        this.counters = new long[DEPTH * this.width];
+    }
+
+    public void increment(long hash) {
+        add(hash, 1);
+    }
+
+    public void add(long hash, long count) {
+        for (int row = 0; row < DEPTH; row++) {
+            counters[index(hash, row)] += count;
+        }
+    }
+
+    public long estimate(long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[index(hash, row)]);
+        }
+        return min;
+    }
+
+    //adds the other sketch's counts, both must have the same width
+    public void merge(CountMinSketch other) {
+        if (other.width != width) {
+            throw new IllegalArgumentException("Width mismatch: " + width + " vs " + other.width);
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+    }
+
+    //ages all counts so old popularity fades out
+    public void halve() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    //spreads Object.hashCode() over 64 bits
+    public static long hash(Object key) {
+        return key.hashCode() * 0x9E3779B97F4A7C15L;
+    }
+
+    private int index(long hash, int row) {
+        long h = (hash ^ (hash >>> 31)) * SEEDS[row];
+        h ^= h >>> 32;
+        return row * width + (int) (h & (width - 1));
+    }
+}
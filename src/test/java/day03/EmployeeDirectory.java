@@ -0,0 +1,529 @@
+package day03;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/*
+Thread-safe replacement for the TreeMap<Employee, Double> in Main: one writer thread updates salaries
+while many request threads read them.
+
+Reads never lock:
+ - by id:   striped int-keyed hash table (no Integer boxing), immutable chains, each stripe resizes on its own
+ - by name: ConcurrentSkipListMap, iterates in name order like the TreeMap
+Both indexes point to a Slot whose head is the newest version of that key.
+
+Writes take one lock, get the next version number and push new versions onto the slots.
+putAll writes several employees under ONE version, so a snapshot sees all of them or none.
+
+snapshot() pins the current version: its reads skip newer versions, so iterating it gives a consistent
+view (sizes and sums match) while writes go on. Taking and closing a snapshot never locks, it only
+adds/removes the snapshot in a concurrent set of pins. Old versions are kept only while a pin needs them,
+close the snapshot (try-with-resources) and the next write trims them.
+
+Names are unique like the TreeMap keys; ids are the identity, put with a new name renames the employee.
+ */
+public class EmployeeDirectory {
+    private static final int STRIPES = 16;
+
+    private final IntSlotMap byId = new IntSlotMap();
+    private final ConcurrentSkipListMap<String, Slot> byName = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListSet<Snapshot> pins = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong((Snapshot snapshot) -> snapshot.pinned).thenComparingLong(snapshot -> snapshot.id));
+    private final AtomicLong snapshotIds = new AtomicLong();
+    private final ArrayDeque<Pending> withHistory = new ArrayDeque<>(); // in version order, guarded by writeLock
+    private volatile Published current = new Published(0, 0);
+
+    //last published version and the size at that version, replaced as a whole by every write
+    private static final class Published {
+        final long version;
+        final int size;
+
+        Published(long version, int size) {
+            this.version = version;
+            this.size = size;
+        }
+    }
+
+    //a slot written at version that still had older versions then
+    private static final class Pending {
+        final Slot slot;
+        final long version;
+
+        Pending(Slot slot, long version) {
+            this.slot = slot;
+            this.version = version;
+        }
+    }
+
+    //immutable, what a reader gets
+    private static final class Record {
+        final int id;
+        final String name;
+        final double value;
+
+        Record(int id, String name, double value) {
+            this.id = id;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static final class Version {
+        final long version;
+        final Record record; // null -> removed
+        volatile Version older;
+
+        Version(long version, Record record, Version older) {
+            this.version = version;
+            this.record = record;
+            this.older = older;
+        }
+    }
+
+    private static final class Slot {
+        final int id;      // key in byId, when name == null
+        final String name; // key in byName
+        volatile Version head;
+
+        Slot(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        Record latest() {
+            Version v = head;
+            return v == null ? null : v.record;
+        }
+
+        Record at(long snapshotVersion) {
+            Version v = head;
+            while (v != null && v.version > snapshotVersion) {
+                v = v.older;
+            }
+            return v == null ? null : v.record;
+        }
+    }
+
+    //------------------------------------------------- reads (lock-free, latest value)
+
+    public int size() {
+        return current.size;
+    }
+
+    //like map.get(), null when the id is not in the directory
+    public Double valueById(int id) {
+        Record record = latest(byId.get(id));
+        return record == null ? null : record.value;
+    }
+
+    public Employee employeeById(int id) {
+        Record record = latest(byId.get(id));
+        return record == null ? null : new Employee(record.id, record.name);
+    }
+
+    public Double valueByName(String name) {
+        Record record = latest(byName.get(name));
+        return record == null ? null : record.value;
+    }
+
+    private static Record latest(Slot slot) {
+        return slot == null ? null : slot.latest();
+    }
+
+    //iterates a snapshot in name order, consistent even while writes go on
+    public void forEach(BiConsumer<Employee, Double> action) {
+        try (Snapshot snapshot = snapshot()) {
+            snapshot.forEach(action);
+        }
+    }
+
+    public TreeMap<Employee, Double> toTreeMap() {
+        try (Snapshot snapshot = snapshot()) {
+            return snapshot.toTreeMap();
+        }
+    }
+
+    //------------------------------------------------- writes
+
+    public void put(Employee employee, double value) {
+        put(employee.id, employee.name, value);
+    }
+
+    //same as putAll with one employee, without building a batch
+    public void put(int id, String name, double value) {
+        Record record = new Record(id, Objects.requireNonNull(name), value);
+        writeLock.lock();
+        try {
+            Record owner = latest(byName.get(name));
+            if (owner != null && owner.id != id) {
+                throw new IllegalArgumentException("Name " + name + " already used by id " + owner.id);
+            }
+            long next = current.version + 1;
+            Record old = latest(byId.get(id));
+            Slot released = old != null && !old.name.equals(name) ? push(byName.get(old.name), null, next) : null;
+            Slot idSlot = push(byId.getOrCreate(id), record, next);
+            Slot nameSlot = push(byName.computeIfAbsent(name, key -> new Slot(0, key)), record, next);
+            long oldest = publish(next, old == null ? 1 : 0);
+            retire(idSlot, next, oldest);
+            retire(nameSlot, next, oldest);
+            if (released != null) {
+                retire(released, next, oldest);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //all employees become visible together; throws IllegalArgumentException (and writes nothing)
+    //when a name would end up with two ids
+    public void putAll(Map<Employee, Double> employees) {
+        Map<Integer, Record> batch = new LinkedHashMap<>();
+        employees.forEach((employee, value) ->
+                batch.put(employee.id, new Record(employee.id, Objects.requireNonNull(employee.name), value)));
+        writeLock.lock();
+        try {
+            checkNames(batch);
+            long next = current.version + 1;
+            int added = 0;
+            List<Slot> touched = new ArrayList<>();
+            //1) renamed employees release their old names first, so another employee in the batch can take them
+            for (Record record : batch.values()) {
+                Record old = latest(byId.get(record.id));
+                if (old == null) {
+                    added++;
+                } else if (!old.name.equals(record.name)) {
+                    touched.add(push(byName.get(old.name), null, next));
+                }
+            }
+            //2) new versions in both indexes
+            for (Record record : batch.values()) {
+                touched.add(push(byId.getOrCreate(record.id), record, next));
+                touched.add(push(byName.computeIfAbsent(record.name, name -> new Slot(0, name)), record, next));
+            }
+            long oldest = publish(next, added);
+            for (Slot slot : touched) {
+                retire(slot, next, oldest);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(int id) {
+        writeLock.lock();
+        try {
+            Record old = latest(byId.get(id));
+            if (old == null) {
+                return false;
+            }
+            long next = current.version + 1;
+            Slot idSlot = push(byId.get(id), null, next);
+            Slot nameSlot = push(byName.get(old.name), null, next);
+            long oldest = publish(next, -1);
+            retire(idSlot, next, oldest);
+            retire(nameSlot, next, oldest);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void checkNames(Map<Integer, Record> batch) {
+        Map<String, Integer> owners = new HashMap<>();
+        for (Record record : batch.values()) {
+            Integer other = owners.put(record.name, record.id);
+            if (other != null) {
+                throw new IllegalArgumentException("Name " + record.name + " used by ids " + other + " and " + record.id);
+            }
+        }
+        for (Record record : batch.values()) {
+            Record owner = latest(byName.get(record.name));
+            //fine if the current owner gives the name up in this same batch
+            if (owner != null && owner.id != record.id && !batch.containsKey(owner.id)) {
+                throw new IllegalArgumentException("Name " + record.name + " already used by id " + owner.id);
+            }
+        }
+    }
+
+    //guarded by writeLock
+    private Slot push(Slot slot, Record record, long next) {
+        Version head = slot.head;
+        if (head != null && head.version == next) {
+            head = head.older; // written twice in one batch, the last write wins
+        }
+        slot.head = new Version(next, record, head);
+        return slot;
+    }
+
+    /*
+    Makes version next visible, then trims the history that no pin needs any more. Returns the oldest
+    pinned version. The pins are read after current is written, and snapshot() adds its pin before
+    reading current again, so either this trim sees the pin or the snapshot sees the new version.
+    guarded by writeLock
+     */
+    private long publish(long next, int sizeChange) {
+        current = new Published(next, current.size + sizeChange);
+        long oldest = oldestPinned(next);
+        //withHistory is in version order, so only its front can be ready
+        while (!withHistory.isEmpty() && withHistory.peekFirst().version <= oldest) {
+            trim(withHistory.pollFirst().slot, oldest);
+        }
+        return oldest;
+    }
+
+    private long oldestPinned(long latest) {
+        Iterator<Snapshot> it = pins.iterator(); // first() throws if the last pin goes away meanwhile
+        return it.hasNext() ? Math.min(it.next().pinned, latest) : latest;
+    }
+
+    //guarded by writeLock
+    private void retire(Slot slot, long next, long oldest) {
+        if (!trim(slot, oldest)) {
+            withHistory.addLast(new Pending(slot, next));
+        }
+    }
+
+    //slots still waiting for a trim, for tests
+    int pendingHistory() {
+        writeLock.lock();
+        try {
+            return withHistory.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+    Cuts versions no open snapshot can see: keeps every version newer than the oldest snapshot plus the
+    first one at or below it. A slot left with only a "removed" version is dropped from its index
+    (every snapshot reads it as absent either way).
+    Returns true when only the head is left. guarded by writeLock
+     */
+    private boolean trim(Slot slot, long oldest) {
+        Version v = slot.head;
+        while (v.version > oldest && v.older != null) {
+            v = v.older;
+        }
+        v.older = null;
+        if (v != slot.head) {
+            return false;
+        }
+        if (v.record == null) {
+            if (slot.name == null) {
+                byId.remove(slot.id, slot);
+            } else {
+                byName.remove(slot.name, slot);
+            }
+        }
+        return true;
+    }
+
+    //------------------------------------------------- snapshots
+
+    /*
+    Lock-free: pins the version seen first, then reads at the version seen after the pin is in place.
+    A write that published in between may not have seen the pin, but it only trimmed below its own version,
+    which is <= the version read here; every later write sees the pin.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot(current.version, snapshotIds.incrementAndGet());
+        pins.add(snapshot);
+        Published published = current;
+        snapshot.version = published.version;
+        snapshot.size = published.size;
+        return snapshot;
+    }
+
+    //consistent read-only view at one version, reads don't lock; close() releases the old versions it pins
+    public class Snapshot implements AutoCloseable {
+        private final long pinned;
+        private final long id;
+        private long version;
+        private int size;
+        private boolean closed;
+
+        private Snapshot(long pinned, long id) {
+            this.pinned = pinned;
+            this.id = id;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Double valueById(int id) {
+            Record record = at(byId.get(id));
+            return record == null ? null : record.value;
+        }
+
+        public Employee employeeById(int id) {
+            Record record = at(byId.get(id));
+            return record == null ? null : new Employee(record.id, record.name);
+        }
+
+        public Double valueByName(String name) {
+            Record record = at(byName.get(name));
+            return record == null ? null : record.value;
+        }
+
+        //name order; names added or removed after the snapshot are skipped by version
+        public void forEach(BiConsumer<Employee, Double> action) {
+            for (Slot slot : byName.values()) {
+                Record record = at(slot);
+                if (record != null) {
+                    action.accept(new Employee(record.id, record.name), record.value);
+                }
+            }
+        }
+
+        public TreeMap<Employee, Double> toTreeMap() {
+            TreeMap<Employee, Double> map = new TreeMap<>();
+            forEach(map::put);
+            return map;
+        }
+
+        private Record at(Slot slot) {
+            if (closed) throw new IllegalStateException("Snapshot is closed");
+            return slot == null ? null : slot.at(version);
+        }
+
+        //the versions this snapshot kept alive are trimmed by the next write
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            pins.remove(this);
+        }
+    }
+
+    /*
+    int -> Slot hash table split into stripes by the high hash bits. Buckets are chains of immutable nodes,
+    so a reader walking a chain never sees it half-changed; the writer (holding writeLock) replaces whole
+    chain prefixes. Each stripe grows on its own, one big rehash never blocks a write for long.
+     */
+    private static final class IntSlotMap {
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        IntSlotMap() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        private static final class Node {
+            final int key;
+            final Slot slot;
+            final Node next;
+
+            Node(int key, Slot slot, Node next) {
+                this.key = key;
+                this.slot = slot;
+                this.next = next;
+            }
+        }
+
+        private static final class Stripe {
+            volatile AtomicReferenceArray<Node> table = new AtomicReferenceArray<>(16);
+            int size; // guarded by writeLock
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private Stripe stripe(int hash) {
+            return stripes[hash >>> 28]; // STRIPES = 16 -> top 4 bits
+        }
+
+        Slot get(int key) {
+            int hash = hash(key);
+            AtomicReferenceArray<Node> table = stripe(hash).table;
+            for (Node node = table.get(hash & (table.length() - 1)); node != null; node = node.next) {
+                if (node.key == key) {
+                    return node.slot;
+                }
+            }
+            return null;
+        }
+
+        //writer only
+        Slot getOrCreate(int key) {
+            Slot slot = get(key);
+            if (slot != null) {
+                return slot;
+            }
+            int hash = hash(key);
+            Stripe stripe = stripe(hash);
+            if (stripe.size >= stripe.table.length() * 3 / 4) {
+                resize(stripe);
+            }
+            AtomicReferenceArray<Node> table = stripe.table;
+            int bucket = hash & (table.length() - 1);
+            slot = new Slot(key, null);
+            table.set(bucket, new Node(key, slot, table.get(bucket)));
+            stripe.size++;
+            return slot;
+        }
+
+        //writer only, removes the key only if it still maps to this slot
+        void remove(int key, Slot slot) {
+            int hash = hash(key);
+            Stripe stripe = stripe(hash);
+            AtomicReferenceArray<Node> table = stripe.table;
+            int bucket = hash & (table.length() - 1);
+            Node head = table.get(bucket);
+            Node node = head;
+            while (node != null && node.slot != slot) {
+                node = node.next;
+            }
+            if (node == null) {
+                return;
+            }
+            //copy the nodes in front of the removed one, the rest of the chain is shared
+            Node rest = node.next;
+            for (Node n = head; n != node; n = n.next) {
+                rest = new Node(n.key, n.slot, rest);
+            }
+            table.set(bucket, rest);
+            stripe.size--;
+        }
+
+        private static void resize(Stripe stripe) {
+            AtomicReferenceArray<Node> old = stripe.table;
+            AtomicReferenceArray<Node> table = new AtomicReferenceArray<>(old.length() * 2);
+            for (int i = 0; i < old.length(); i++) {
+                for (Node node = old.get(i); node != null; node = node.next) {
+                    int bucket = hash(node.key) & (table.length() - 1);
+                    table.set(bucket, new Node(node.key, node.slot, table.get(bucket)));
+                }
+            }
+            stripe.table = table; // readers still on the old table see complete old chains
+        }
+    }
+
+    public static void main(String[] args) {
+        EmployeeDirectory directory = new EmployeeDirectory();
+        directory.put(new Employee(3, "Alice"), 85000.0);
+        directory.put(new Employee(1, "Bob"), 102000.0);
+        directory.put(new Employee(2, "Charlie"), 77000.0);
+        System.out.println("map = " + directory.toTreeMap()); // same as the TreeMap in Main
+
+        try (Snapshot before = directory.snapshot()) {
+            directory.put(1, "Bob", 110000.0); // raise
+            directory.remove(2);
+            System.out.println("before = " + before.toTreeMap());
+            System.out.println("after  = " + directory.toTreeMap());
+        }
+    }
+}
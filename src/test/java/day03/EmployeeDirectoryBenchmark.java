@@ -0,0 +1,81 @@
+package day03;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+99% reads / 1% salary updates from every thread: EmployeeDirectory vs the Main TreeMap behind
+Collections.synchronizedSortedMap. main() runs it with 1, 2, 4 and 8 threads; directory throughput
+should grow with the threads, the synchronized map stays flat (every read takes the same lock).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeDirectoryBenchmark {
+    static final int EMPLOYEES = 100_000;
+
+    EmployeeDirectory directory;
+    SortedMap<Employee, Double> synchronizedMap;
+    Employee[] keys;
+
+    @Setup
+    public void setUp() {
+        directory = new EmployeeDirectory();
+        synchronizedMap = Collections.synchronizedSortedMap(new TreeMap<>());
+        keys = new Employee[EMPLOYEES];
+        for (int i = 0; i < EMPLOYEES; i++) {
+            keys[i] = new Employee(i, "Employee" + i);
+            directory.put(keys[i], 1000.0);
+            synchronizedMap.put(keys[i], 1000.0);
+        }
+    }
+
+    @Benchmark
+    public Double directoryById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(EMPLOYEES);
+        if (random.nextInt(100) == 0) {
+            directory.put(keys[id], random.nextInt(100_000));
+            return null;
+        }
+        return directory.valueById(id);
+    }
+
+    @Benchmark
+    public Double directoryByName() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Employee key = keys[random.nextInt(EMPLOYEES)];
+        if (random.nextInt(100) == 0) {
+            directory.put(key, random.nextInt(100_000));
+            return null;
+        }
+        return directory.valueByName(key.name);
+    }
+
+    @Benchmark
+    public Double synchronizedTreeMap() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Employee key = keys[random.nextInt(EMPLOYEES)];
+        if (random.nextInt(100) == 0) {
+            synchronizedMap.put(key, (double) random.nextInt(100_000));
+            return null;
+        }
+        return synchronizedMap.get(key);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            new Runner(new OptionsBuilder().include(EmployeeDirectoryBenchmark.class.getSimpleName())
+                    .threads(threads).build()).run();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package day03;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EmployeeDirectoryTest {
+
+    @Test
+    public void behavesLikeTheTreeMap() {
+        EmployeeDirectory directory = new EmployeeDirectory();
+        TreeMap<Employee, Double> expected = new TreeMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 5_000; i++) { // enough ids to resize every stripe a few times
+            double value = random.nextInt(100_000);
+            directory.put(i, "Employee" + i, value);
+            expected.put(new Employee(i, "Employee" + i), value);
+        }
+        Assertions.assertEquals(expected.toString(), directory.toTreeMap().toString());
+        Assertions.assertEquals(5_000, directory.size());
+        Assertions.assertEquals(expected.get(new Employee(0, "Employee42")), directory.valueById(42));
+        Assertions.assertEquals(expected.get(new Employee(0, "Employee42")), directory.valueByName("Employee42"));
+
+        directory.put(42, "Renamed", 1.0); // same id, new name
+        Assertions.assertNull(directory.valueByName("Employee42"));
+        Assertions.assertEquals(1.0, directory.valueByName("Renamed"));
+        Assertions.assertEquals("42 - Renamed", directory.employeeById(42).toString());
+        Assertions.assertEquals(5_000, directory.size());
+
+        Assertions.assertTrue(directory.remove(42));
+        Assertions.assertFalse(directory.remove(42));
+        Assertions.assertNull(directory.valueById(42));
+        Assertions.assertNull(directory.valueByName("Renamed"));
+        Assertions.assertEquals(4_999, directory.size());
+
+        //names stay unique, a failed batch writes nothing
+        Assertions.assertThrows(IllegalArgumentException.class, () -> directory.put(1, "Employee2", 5.0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> directory.putAll(
+                Map.of(new Employee(7, "New7"), 7.0, new Employee(8, "Employee9"), 8.0)));
+        Assertions.assertNull(directory.valueByName("New7"));
+        //but two employees can swap names in one batch
+        directory.putAll(Map.of(new Employee(1, "Employee2"), 1.0, new Employee(2, "Employee1"), 2.0));
+        Assertions.assertEquals("1 - Employee2", directory.employeeById(1).toString());
+        Assertions.assertEquals(2.0, directory.valueByName("Employee1"));
+    }
+
+    @Test
+    public void snapshotDoesNotSeeLaterWrites() {
+        EmployeeDirectory directory = new EmployeeDirectory();
+        directory.put(new Employee(3, "Alice"), 85000.0);
+        directory.put(new Employee(1, "Bob"), 102000.0);
+        directory.put(new Employee(2, "Charlie"), 77000.0);
+
+        try (EmployeeDirectory.Snapshot snapshot = directory.snapshot()) {
+            directory.put(1, "Bob", 110000.0);
+            directory.remove(2);
+            directory.put(4, "Dana", 90000.0);
+            directory.put(3, "Alicia", 85000.0);
+
+            Assertions.assertEquals("{3 - Alice=85000.0, 1 - Bob=102000.0, 2 - Charlie=77000.0}", snapshot.toTreeMap().toString());
+            Assertions.assertEquals(3, snapshot.size());
+            Assertions.assertEquals(77000.0, snapshot.valueById(2));
+            Assertions.assertNull(snapshot.valueByName("Dana"));
+            Assertions.assertEquals("3 - Alice", snapshot.employeeById(3).toString());
+            Assertions.assertEquals("{3 - Alicia=85000.0, 1 - Bob=110000.0, 4 - Dana=90000.0}", directory.toTreeMap().toString());
+        }
+        //removed and renamed keys are gone once no snapshot needs them
+        directory.put(5, "Eve", 1.0);
+        Assertions.assertNull(directory.valueById(2));
+        Assertions.assertNull(directory.valueByName("Alice"));
+        Assertions.assertEquals(0, directory.pendingHistory());
+    }
+
+    @Test
+    public void snapshotsStayConsistentDuringWrites() throws InterruptedException {
+        //the writer moves money between employees with putAll, the total never changes
+        EmployeeDirectory directory = new EmployeeDirectory();
+        int employees = 200;
+        for (int i = 0; i < employees; i++) {
+            directory.put(i, "Employee" + i, 1000.0);
+        }
+        double total = employees * 1000.0;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger inconsistent = new AtomicInteger();
+        AtomicInteger snapshots = new AtomicInteger();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    try (EmployeeDirectory.Snapshot snapshot = directory.snapshot()) {
+                        double[] sum = {0};
+                        int[] count = {0};
+                        snapshot.forEach((employee, value) -> {
+                            sum[0] += value;
+                            count[0]++;
+                        });
+                        if (sum[0] != total || count[0] != employees || snapshot.size() != employees) {
+                            inconsistent.incrementAndGet();
+                        }
+                        snapshots.incrementAndGet();
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        Random random = new Random(2);
+        double[] values = new double[employees];
+        Arrays.fill(values, 1000.0);
+        for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(employees);
+            int to = (from + 1 + random.nextInt(employees - 1)) % employees;
+            values[from] -= 10;
+            values[to] += 10;
+            Map<Employee, Double> transfer = new HashMap<>();
+            transfer.put(new Employee(from, "Employee" + from), values[from]);
+            transfer.put(new Employee(to, "Employee" + to), values[to]);
+            directory.putAll(transfer);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assertions.assertTrue(snapshots.get() > 0);
+        Assertions.assertEquals(0, inconsistent.get());
+        Assertions.assertEquals(values[7], directory.valueById(7));
+    }
+}
@@ -0,0 +1,443 @@
+package day03;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/*
+Binary snapshot of (id, name, value) records, e.g. the TreeMap<Employee, Double> from Main
+or a Map<Integer, String> from MapObjects (value 0).
+The file is memory-mapped on open and every lookup reads straight from the mapping,
+there is no deserialization pass, so opening 10M records is just an mmap + header check.
+The CRC is only checked when asked for (open(file, true)), that pass reads the whole file.
+Writer builds the file under a temp name and renames it over the target on commit(),
+so a crash or an exception while writing or appending leaves the previous snapshot as it was.
+
+Layout (big-endian):
+  header   40 bytes: magic, version, record count, CRC32 of everything after the header,
+                     string table offset, name index offset, id index offset
+  records  count x 20 bytes: id int, name offset int (in chars), name length int, value double
+  strings  names as UTF-16 chars, so names compare exactly like String.compareTo
+  name idx count x int: record numbers sorted by name (same order as Employee.compareTo)
+  id idx   count x (id int, record int) sorted by id
+ */
+public class EmployeeSnapshot {
+    static final int MAGIC = 0x454D5053; // "EMPS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int RECORD_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int stringsOffset;
+    private final int nameIndexOffset;
+    private final int idIndexOffset;
+
+    private EmployeeSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an employee snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        count = buffer.getInt(8);
+        stringsOffset = (int) buffer.getLong(16);
+        nameIndexOffset = (int) buffer.getLong(24);
+        idIndexOffset = (int) buffer.getLong(32);
+        if (count < 0 || stringsOffset != HEADER_SIZE + (long) RECORD_SIZE * count
+                || nameIndexOffset < stringsOffset || (nameIndexOffset - stringsOffset) % 2 != 0
+                || idIndexOffset + 8L * count != buffer.limit() || nameIndexOffset + 4L * count != idIndexOffset) {
+            throw new IOException("Truncated or corrupt snapshot");
+        }
+    }
+
+    //maps the file and checks the header only, no pass over the data
+    public static EmployeeSnapshot open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    //verifyChecksum=true also reads the whole file once to check the CRC, for files that may be damaged
+    public static EmployeeSnapshot open(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2GB: " + file);
+            }
+            //the mapping stays valid after the channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            EmployeeSnapshot snapshot = new EmployeeSnapshot(map);
+            if (verifyChecksum && snapshot.checksum() != map.getInt(12)) {
+                throw new IOException("Checksum mismatch in " + file);
+            }
+            return snapshot;
+        }
+    }
+
+    private int checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_SIZE));
+        return (int) crc.getValue();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    //record accessors, record is 0..size()-1 in append order
+    public int id(int record) {
+        return buffer.getInt(recordOffset(record));
+    }
+
+    public String name(int record) {
+        int offset = recordOffset(record);
+        int start = stringsOffset + 2 * buffer.getInt(offset + 4);
+        char[] chars = new char[buffer.getInt(offset + 8)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar(start + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    public double value(int record) {
+        return buffer.getDouble(recordOffset(record) + 12);
+    }
+
+    public Employee employee(int record) {
+        return new Employee(id(record), name(record));
+    }
+
+    //like map.get(), null when the id is not in the snapshot
+    public Double valueById(int id) {
+        int record = findById(id);
+        return record < 0 ? null : value(record);
+    }
+
+    public Employee employeeById(int id) {
+        int record = findById(id);
+        return record < 0 ? null : employee(record);
+    }
+
+    //binary search on the id index, returns record number or -1
+    public int findById(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(idIndexOffset + 8 * mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(idIndexOffset + 8 * mid + 4);
+            }
+        }
+        return -1;
+    }
+
+    public Double valueByName(String name) {
+        int record = findByName(name);
+        return record < 0 ? null : value(record);
+    }
+
+    //binary search on the name index comparing chars in place (no String created), returns record or -1
+    public int findByName(String name) {
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = buffer.getInt(nameIndexOffset + 4 * mid);
+            int cmp = compareName(record, name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                if (cmp == 0) {
+                    found = record; // keep going left to return the first record with this name
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int compareName(int record, String name) {
+        int offset = recordOffset(record);
+        int start = stringsOffset + 2 * buffer.getInt(offset + 4);
+        int length = buffer.getInt(offset + 8);
+        int n = Math.min(length, name.length());
+        for (int i = 0; i < n; i++) {
+            char c = buffer.getChar(start + 2 * i);
+            if (c != name.charAt(i)) {
+                return c - name.charAt(i);
+            }
+        }
+        return length - name.length();
+    }
+
+    //iterates in name order, same as iterating the TreeMap<Employee, Double>
+    public void forEach(BiConsumer<Employee, Double> action) {
+        for (int i = 0; i < count; i++) {
+            int record = buffer.getInt(nameIndexOffset + 4 * i);
+            action.accept(employee(record), value(record));
+        }
+    }
+
+    public TreeMap<Employee, Double> toTreeMap() {
+        TreeMap<Employee, Double> map = new TreeMap<>();
+        forEach(map::put);
+        return map;
+    }
+
+    private int recordOffset(int record) {
+        Objects.checkIndex(record, count);
+        return HEADER_SIZE + RECORD_SIZE * record;
+    }
+
+    public static void write(Path file, Map<Employee, Double> map) throws IOException {
+        try (Writer writer = new Writer(file, false)) {
+            map.forEach(writer::append);
+            writer.commit();
+        }
+    }
+
+    /*
+    Streaming writer: records go to disk as they are appended, only ids and names are kept
+    in memory to build the string table and the two indexes on commit().
+    append=true continues an existing snapshot: its records are kept and the indexes are rebuilt.
+    Everything goes to a temp file in the same directory, commit() renames it over the target.
+    close() without commit() (an exception in the try block) or after a failed append deletes the temp file,
+    the target stays as it was.
+     */
+    public static class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+        private final CRC32 crc = new CRC32();
+
+        private char[] strings = new char[1024];
+        private int stringsLength;
+        private int[] ids = new int[1024];
+        private int[] nameOffsets = new int[1024];
+        private int[] nameLengths = new int[1024];
+        private int count;
+        private long recordBytesWritten;
+        private boolean failed;
+        private boolean committed;
+
+        public Writer(Path file, boolean append) throws IOException {
+            this.file = file;
+            temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                if (append && Files.exists(file)) {
+                    //existing records are copied as they are, we only need their ids and names for the indexes
+                    EmployeeSnapshot existing = open(file, true);
+                    for (int i = 0; i < existing.size(); i++) {
+                        remember(existing.id(i), existing.name(i));
+                    }
+                    crc.update(existing.buffer.duplicate().position(HEADER_SIZE).limit(existing.stringsOffset));
+                    recordBytesWritten = (long) RECORD_SIZE * count;
+                    try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+                        for (long copied = 0; copied < existing.stringsOffset; ) {
+                            copied += source.transferTo(copied, existing.stringsOffset - copied, channel);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            this.channel = channel;
+        }
+
+        public void append(Employee employee, double value) {
+            append(employee.id, employee.name, value);
+        }
+
+        public void append(int id, String name, double value) {
+            Objects.requireNonNull(name, "name"); // checked before anything is written
+            checkWritable();
+            try {
+                ensureRoom(RECORD_SIZE);
+                out.putInt(id).putInt(stringsLength).putInt(name.length()).putDouble(value);
+                remember(id, name);
+            } catch (IOException e) {
+                failed = true;
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException | Error e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        private void checkWritable() {
+            if (committed) throw new IllegalStateException("Snapshot already committed");
+            if (failed) throw new IllegalStateException("An earlier write failed, nothing will be committed");
+        }
+
+        private void remember(int id, String name) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                nameOffsets = Arrays.copyOf(nameOffsets, count * 2);
+                nameLengths = Arrays.copyOf(nameLengths, count * 2);
+            }
+            if (stringsLength + name.length() > strings.length) {
+                strings = Arrays.copyOf(strings, Math.max(strings.length * 2, stringsLength + name.length()));
+            }
+            name.getChars(0, name.length(), strings, stringsLength);
+            ids[count] = id;
+            nameOffsets[count] = stringsLength;
+            nameLengths[count] = name.length();
+            stringsLength += name.length();
+            count++;
+        }
+
+        //writes the string table and indexes, then atomically replaces the target file
+        public void commit() throws IOException {
+            checkWritable();
+            try {
+                writeTail();
+                channel.close();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException | Error e) {
+                failed = true;
+                throw e;
+            }
+            committed = true;
+        }
+
+        //discards everything that was not committed, the target file is untouched then
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+
+        //string table, indexes and header, then fsync
+        private void writeTail() throws IOException {
+            long stringsOffset = HEADER_SIZE + (long) RECORD_SIZE * count;
+            for (int i = 0; i < stringsLength; i++) {
+                ensureRoom(2);
+                out.putChar(strings[i]);
+            }
+
+            long nameIndexOffset = stringsOffset + 2L * stringsLength;
+            for (int record : sortedByName()) {
+                ensureRoom(4);
+                out.putInt(record);
+            }
+
+            long idIndexOffset = nameIndexOffset + 4L * count;
+            long[] byId = new long[count];
+            for (int i = 0; i < count; i++) {
+                byId[i] = ((long) ids[i] << 32) | i; // sorts by id, then record number
+            }
+            Arrays.sort(byId);
+            for (long entry : byId) {
+                ensureRoom(8);
+                out.putLong(entry);
+            }
+            flush();
+            if (idIndexOffset + 8L * count > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2GB");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt((int) crc.getValue())
+                    .putLong(stringsOffset).putLong(nameIndexOffset).putLong(idIndexOffset).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        private int[] sortedByName() {
+            int[] records = new int[count];
+            for (int i = 0; i < count; i++) {
+                records[i] = i;
+            }
+            //stable merge sort on primitive ints, so equal names keep append order
+            int[] tmp = new int[count];
+            for (int width = 1; width < count; width *= 2) {
+                for (int from = 0; from < count - width; from += 2 * width) {
+                    int mid = from + width;
+                    int to = Math.min(from + 2 * width, count);
+                    int i = from, j = mid, k = from;
+                    while (i < mid && j < to) {
+                        tmp[k++] = compareNames(records[j], records[i]) < 0 ? records[j++] : records[i++];
+                    }
+                    while (i < mid) tmp[k++] = records[i++];
+                    while (j < to) tmp[k++] = records[j++];
+                    System.arraycopy(tmp, from, records, from, to - from);
+                }
+            }
+            return records;
+        }
+
+        private int compareNames(int a, int b) {
+            return Arrays.compare(strings, nameOffsets[a], nameOffsets[a] + nameLengths[a],
+                    strings, nameOffsets[b], nameOffsets[b] + nameLengths[b]);
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            crc.update(out.duplicate());
+            while (out.hasRemaining()) {
+                recordBytesWritten += channel.write(out, HEADER_SIZE + recordBytesWritten);
+            }
+            out.clear();
+        }
+    }
+
+    //writes 10M records then times open + lookups, pass a record count to change the size
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path file = Files.createTempFile("employees", ".snap");
+        try {
+            long start = System.nanoTime();
+            try (Writer writer = new Writer(file, false)) {
+                for (int i = 0; i < n; i++) {
+                    writer.append(i, "Employee" + i, 50000 + i % 1000);
+                }
+                writer.commit();
+            }
+            System.out.printf("write %d records: %d ms%n", n, (System.nanoTime() - start) / 1_000_000);
+
+            start = System.nanoTime();
+            EmployeeSnapshot snapshot = open(file);
+            System.out.printf("open: %.3f ms%n", (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            System.out.println(snapshot.employeeById(n / 2) + " = " + snapshot.valueByName("Employee" + (n / 3)));
+            System.out.printf("first lookups: %.3f ms%n", (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            open(file, true);
+            System.out.printf("open with checksum: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
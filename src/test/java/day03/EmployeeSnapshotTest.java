@@ -0,0 +1,116 @@
+package day03;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+public class EmployeeSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private Map<Employee, Double> salaries() {
+        Map<Employee, Double> map = new TreeMap<>();
+        map.put(new Employee(3, "Alice"), 85000.0);
+        map.put(new Employee(1, "Bob"), 102000.0);
+        map.put(new Employee(2, "Charlie"), 77000.0);
+        return map;
+    }
+
+    @Test
+    public void lookupsReadFromMappedFile() throws IOException {
+        Path file = dir.resolve("employees.snap");
+        EmployeeSnapshot.write(file, salaries());
+
+        EmployeeSnapshot snapshot = EmployeeSnapshot.open(file);
+        Assertions.assertEquals(3, snapshot.size());
+        Assertions.assertEquals(102000.0, snapshot.valueById(1));
+        Assertions.assertEquals("Charlie", snapshot.employeeById(2).name);
+        Assertions.assertEquals(85000.0, snapshot.valueByName("Alice"));
+        Assertions.assertNull(snapshot.valueById(7));
+        Assertions.assertNull(snapshot.valueByName("Al"));
+        Assertions.assertEquals(salaries().toString(), snapshot.toTreeMap().toString());
+    }
+
+    @Test
+    public void appendKeepsExistingRecords() throws IOException {
+        Path file = dir.resolve("employees.snap");
+        EmployeeSnapshot.write(file, salaries());
+        try (EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer(file, true)) {
+            writer.append(new Employee(0, "Aaron"), 60000.0);
+            writer.append(9, "Zed", 1.5);
+            writer.commit();
+        }
+
+        EmployeeSnapshot snapshot = EmployeeSnapshot.open(file);
+        Assertions.assertEquals(5, snapshot.size());
+        Assertions.assertEquals("0 - Aaron", snapshot.employeeById(0).toString());
+        Assertions.assertEquals(1.5, snapshot.valueByName("Zed"));
+        Assertions.assertEquals(77000.0, snapshot.valueByName("Charlie"));
+        Assertions.assertEquals("{0 - Aaron=60000.0, 3 - Alice=85000.0, 1 - Bob=102000.0, 2 - Charlie=77000.0, 9 - Zed=1.5}",
+                snapshot.toTreeMap().toString());
+    }
+
+    @Test
+    public void corruptFileFailsChecksum() throws IOException {
+        Path file = dir.resolve("employees.snap");
+        EmployeeSnapshot.write(file, salaries());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), EmployeeSnapshot.HEADER_SIZE + 1);
+        }
+        Assertions.assertThrows(IOException.class, () -> EmployeeSnapshot.open(file, true));
+        Assertions.assertDoesNotThrow(() -> EmployeeSnapshot.open(file));
+    }
+
+    @Test
+    public void appendReplacesFileOnCommit() throws IOException {
+        Path file = dir.resolve("employees.snap");
+        EmployeeSnapshot.write(file, salaries());
+        EmployeeSnapshot before = EmployeeSnapshot.open(file);
+        try (EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer(file, true)) {
+            writer.append(4, "Dave", 50000.0);
+            //nothing is visible until commit
+            Assertions.assertEquals(3, EmployeeSnapshot.open(file, true).size());
+            writer.commit();
+        }
+        Assertions.assertEquals(3, before.size());
+        Assertions.assertEquals(102000.0, before.valueById(1));
+        Assertions.assertEquals(50000.0, EmployeeSnapshot.open(file, true).valueByName("Dave"));
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void failedAppendLeavesOldSnapshot() throws IOException {
+        Path file = dir.resolve("employees.snap");
+        EmployeeSnapshot.write(file, salaries());
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            try (EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer(file, true)) {
+                writer.append(4, "Dave", 50000.0);
+                throw new IllegalStateException("caller failed before commit");
+            }
+        });
+        Assertions.assertThrows(NullPointerException.class, () -> {
+            try (EmployeeSnapshot.Writer writer = new EmployeeSnapshot.Writer(file, true)) {
+                writer.append(5, null, 1.0);
+                writer.commit();
+            }
+        });
+
+        EmployeeSnapshot snapshot = EmployeeSnapshot.open(file, true);
+        Assertions.assertEquals(salaries().toString(), snapshot.toTreeMap().toString());
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count()); // no temp files left
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package day03;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+Sorts more Employees than fit on the heap, unlike Collections.sort(employees) or a TreeMap.
+
+1) the input iterator is cut into runs of runSize employees
+2) full runs are sorted and spilled to temp files on a thread pool while the next run is being read,
+   at most parallelRuns runs are sorting/spilling at once so memory stays bounded
+3) the run files are merged with a loser tree (log2(k) comparisons per employee for k runs),
+   reading each file through its own buffered FileChannel. At most maxMergeWidth runs are open at once:
+   with more runs, groups of maxMergeWidth are first merged into longer runs (on the same pool)
+   until few enough are left for the final merge
+
+Same order as Collections.sort with the same comparator, including the order of equal employees.
+The result is an iterator, so the next stage can consume it while the merge is still running.
+If sort() fails or is interrupted, the readers are closed and the temp files deleted before it throws.
+ */
+public class ExternalSorter {
+    static final int DEFAULT_MERGE_WIDTH = 64;
+
+    private final Comparator<? super Employee> comparator;
+    private final int runSize;
+    private final int parallelRuns;
+    private final int maxMergeWidth;
+    private final Path tempDir;
+
+    //natural order, i.e. Employee.compareTo (by name)
+    public ExternalSorter(int runSize) {
+        this(Comparator.naturalOrder(), runSize);
+    }
+
+    public ExternalSorter(Comparator<? super Employee> comparator, int runSize) {
+        this(comparator, runSize, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    //every sort spills into its own new directory inside tempDir (null -> java.io.tmpdir) and deletes only that,
+    //so tempDir can hold other files and be shared by concurrent sorts
+    public ExternalSorter(Comparator<? super Employee> comparator, int runSize, int parallelRuns, Path tempDir) {
+        this(comparator, runSize, parallelRuns, DEFAULT_MERGE_WIDTH, tempDir);
+    }
+
+    //maxMergeWidth: most run files merged (and so open) at once, at least 2
+    public ExternalSorter(Comparator<? super Employee> comparator, int runSize, int parallelRuns, int maxMergeWidth,
+                          Path tempDir) {
+        if (runSize <= 0 || parallelRuns <= 0) {
+            throw new IllegalArgumentException("runSize and parallelRuns must be positive");
+        }
+        if (maxMergeWidth < 2) {
+            throw new IllegalArgumentException("maxMergeWidth must be at least 2: " + maxMergeWidth);
+        }
+        this.comparator = comparator;
+        this.runSize = runSize;
+        this.parallelRuns = parallelRuns;
+        this.maxMergeWidth = maxMergeWidth;
+        this.tempDir = tempDir;
+    }
+
+    public SortedIterator sort(Iterator<Employee> input) throws IOException {
+        Employee[] run = fill(input);
+        if (!input.hasNext()) {
+            //everything fits in one run, no temp files needed
+            Arrays.sort(run, comparator);
+            return new SortedIterator(Arrays.asList(run).iterator(), null);
+        }
+
+        Path dir = tempDir != null ? Files.createTempDirectory(Files.createDirectories(tempDir), "employee-sort")
+                : Files.createTempDirectory("employee-sort");
+        ExecutorService pool = Executors.newFixedThreadPool(parallelRuns);
+        List<RunReader> readers = new ArrayList<>();
+        boolean done = false;
+        try {
+            List<Path> runs = spill(run, input, dir, pool);
+            for (int pass = 1; runs.size() > maxMergeWidth; pass++) {
+                runs = mergePass(runs, dir, pass, pool);
+            }
+            for (Path file : runs) {
+                readers.add(new RunReader(file));
+            }
+            SortedIterator sorted = new SortedIterator(new LoserTree(readers, comparator), dir);
+            done = true;
+            return sorted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            if (done) {
+                pool.shutdown();
+            } else {
+                //stop the other spills/merges before deleting the files they write
+                pool.shutdownNow();
+                awaitTermination(pool);
+                for (RunReader reader : readers) {
+                    closeQuietly(reader);
+                }
+                deleteQuietly(dir);
+            }
+        }
+    }
+
+    //sorts and writes every run, returns the run files in input order
+    private List<Path> spill(Employee[] run, Iterator<Employee> input, Path dir, ExecutorService pool)
+            throws InterruptedException, ExecutionException {
+        Semaphore inFlight = new Semaphore(parallelRuns);
+        List<Future<Path>> spills = new ArrayList<>();
+        while (run.length > 0) {
+            Employee[] toSpill = run;
+            Path file = dir.resolve("run-" + spills.size() + ".bin");
+            inFlight.acquire();
+            spills.add(pool.submit(() -> {
+                try {
+                    Arrays.sort(toSpill, comparator);
+                    writeRun(file, Arrays.asList(toSpill).iterator());
+                    return file;
+                } finally {
+                    inFlight.release();
+                }
+            }));
+            run = fill(input);
+        }
+        return getAll(spills);
+    }
+
+    //merges neighbouring runs in groups of maxMergeWidth, neighbours keep equal employees in input order
+    private List<Path> mergePass(List<Path> runs, Path dir, int pass, ExecutorService pool)
+            throws InterruptedException, ExecutionException {
+        List<Future<Path>> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += maxMergeWidth) {
+            List<Path> group = runs.subList(from, Math.min(from + maxMergeWidth, runs.size()));
+            Path file = dir.resolve("pass" + pass + "-" + merged.size() + ".bin");
+            merged.add(pool.submit(() -> mergeRuns(group, file)));
+        }
+        return getAll(merged);
+    }
+
+    private Path mergeRuns(List<Path> group, Path file) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path run : group) {
+                readers.add(new RunReader(run));
+            }
+            writeRun(file, new LoserTree(readers, comparator));
+        } finally {
+            for (RunReader reader : readers) {
+                closeQuietly(reader);
+            }
+        }
+        for (Path run : group) {
+            Files.delete(run);
+        }
+        return file;
+    }
+
+    private static List<Path> getAll(List<Future<Path>> futures) throws InterruptedException, ExecutionException {
+        List<Path> files = new ArrayList<>();
+        for (Future<Path> future : futures) {
+            files.add(future.get());
+        }
+        return files;
+    }
+
+    //waits even when interrupted, the tasks were already told to stop
+    private static void awaitTermination(ExecutorService pool) {
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //cleanup after a failure, the original exception is the one worth reporting
+    private static void closeQuietly(RunReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try {
+            deleteAll(dir);
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private Employee[] fill(Iterator<Employee> input) {
+        List<Employee> run = new ArrayList<>(Math.min(runSize, 1024));
+        while (run.size() < runSize && input.hasNext()) {
+            run.add(input.next());
+        }
+        return run.toArray(new Employee[0]);
+    }
+
+    //record: id int, name length int, name chars (UTF-16)
+    private static void writeRun(Path file, Iterator<Employee> run) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (run.hasNext()) {
+                Employee employee = run.next();
+                int size = 8 + 2 * employee.name.length();
+                if (buffer.remaining() < size) {
+                    flush(channel, buffer);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocateDirect(size);
+                    }
+                }
+                buffer.putInt(employee.id).putInt(employee.name.length());
+                for (int i = 0; i < employee.name.length(); i++) {
+                    buffer.putChar(employee.name.charAt(i));
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    //reads one spilled run back, one buffer at a time
+    private static class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).flip();
+
+        RunReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        //null at the end of the run
+        Employee next() throws IOException {
+            if (!fill(8)) {
+                return null;
+            }
+            int id = buffer.getInt();
+            int length = buffer.getInt();
+            if (!fill(2 * length)) {
+                throw new IOException("Truncated run file");
+            }
+            char[] name = new char[length];
+            for (int i = 0; i < length; i++) {
+                name[i] = buffer.getChar();
+            }
+            return new Employee(id, new String(name));
+        }
+
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return true;
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) break;
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /*
+    Tournament tree over k runs: tree[0] is the run with the smallest head, every inner node keeps the
+    loser of the match played there. After taking the winner only the matches on its path are replayed.
+     */
+    private static class LoserTree implements Iterator<Employee> {
+        private final List<RunReader> readers;
+        private final Comparator<? super Employee> comparator;
+        private final Employee[] heads; // null -> run exhausted
+        private final int[] tree;
+        private final int k;
+
+        LoserTree(List<RunReader> readers, Comparator<? super Employee> comparator) throws IOException {
+            this.readers = readers;
+            this.comparator = comparator;
+            this.k = readers.size();
+            this.heads = new Employee[k];
+            this.tree = new int[Math.max(k, 1)];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < k; i++) {
+                heads[i] = readers.get(i).next();
+            }
+            for (int i = 0; i < k; i++) {
+                replay(i);
+            }
+        }
+
+        //leaf i sits at virtual position k + i, its matches are on the way up to the root
+        private void replay(int run) {
+            int winner = run;
+            for (int node = (run + k) / 2; node > 0; node /= 2) {
+                if (tree[node] == -1) {
+                    tree[node] = winner; // first to arrive while building, wait for the opponent
+                    return;
+                }
+                if (beats(tree[node], winner)) {
+                    int loser = winner;
+                    winner = tree[node];
+                    tree[node] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        //exhausted runs lose against everything, equal heads: the earlier run wins (stable)
+        private boolean beats(int a, int b) {
+            if (heads[a] == null) return false;
+            if (heads[b] == null) return true;
+            int cmp = comparator.compare(heads[a], heads[b]);
+            return cmp < 0 || (cmp == 0 && a < b);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return k > 0 && heads[tree[0]] != null;
+        }
+
+        @Override
+        public Employee next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int winner = tree[0];
+            Employee result = heads[winner];
+            try {
+                heads[winner] = readers.get(winner).next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            replay(winner);
+            return result;
+        }
+
+        //closes every reader even if one fails, then throws the first failure
+        void close() throws IOException {
+            IOException failure = null;
+            for (RunReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    //sorted output; close() (or reading to the end) deletes the temp files
+    public static class SortedIterator implements Iterator<Employee>, AutoCloseable {
+        private final Iterator<Employee> source;
+        private final Path dir;
+        private boolean closed;
+
+        SortedIterator(Iterator<Employee> source, Path dir) {
+            this.source = source;
+            this.dir = dir;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) return false;
+            if (source.hasNext()) return true;
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return false;
+        }
+
+        @Override
+        public Employee next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return source.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                if (source instanceof LoserTree) {
+                    ((LoserTree) source).close();
+                }
+            } finally {
+                if (dir != null) {
+                    deleteAll(dir);
+                }
+            }
+        }
+    }
+}
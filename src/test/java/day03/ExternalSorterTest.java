@@ -0,0 +1,130 @@
+package day03;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class ExternalSorterTest {
+    @TempDir
+    Path dir;
+
+    private List<Employee> randomEmployees(int n) {
+        Random random = new Random(3);
+        String[] names = {"Alice", "Bob", "Charlie", "Dana", "Émile", "Zoe"};
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String name = names[random.nextInt(names.length)] + (random.nextBoolean() ? random.nextInt(100) : "");
+            employees.add(new Employee(random.nextInt(1_000_000), name));
+        }
+        return employees;
+    }
+
+    private List<String> drain(Iterator<Employee> it) {
+        List<String> result = new ArrayList<>();
+        it.forEachRemaining(e -> result.add(e.toString()));
+        return result;
+    }
+
+    private static long entries(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    //files in the one sort directory under tempDir
+    private static long spilledFiles(Path tempDir) throws IOException {
+        try (var dirs = Files.list(tempDir)) {
+            List<Path> sortDirs = dirs.toList();
+            Assertions.assertEquals(1, sortDirs.size());
+            return entries(sortDirs.get(0));
+        }
+    }
+
+    @Test
+    public void sameOrderAsCollectionsSort() throws IOException {
+        List<Employee> employees = randomEmployees(10_000);
+        List<Employee> expected = new ArrayList<>(employees);
+        Collections.sort(expected);
+
+        Path runs = dir.resolve("runs");
+        ExternalSorter sorter = new ExternalSorter(Comparator.naturalOrder(), 333, 3, runs);
+        try (ExternalSorter.SortedIterator sorted = sorter.sort(employees.iterator())) {
+            Assertions.assertTrue(spilledFiles(runs) > 30); // really spilled
+            Assertions.assertEquals(drain(expected.iterator()), drain(sorted));
+        }
+        Assertions.assertEquals(0, entries(runs));
+    }
+
+    @Test
+    public void sortsWithIdComparator() throws IOException {
+        Comparator<Employee> byId = Comparator.comparingInt(e -> e.id);
+        List<Employee> employees = randomEmployees(5_000);
+        List<Employee> expected = new ArrayList<>(employees);
+        expected.sort(byId);
+
+        try (ExternalSorter.SortedIterator sorted = new ExternalSorter(byId, 1000).sort(employees.iterator())) {
+            Assertions.assertEquals(drain(expected.iterator()), drain(sorted));
+        }
+    }
+
+    @Test
+    public void smallAndEmptyInputs() throws IOException {
+        ExternalSorter sorter = new ExternalSorter(10);
+        List<Employee> employees = List.of(new Employee(3, "Alice"), new Employee(1, "Bob"), new Employee(2, "Charlie"));
+        Assertions.assertEquals("[3 - Alice, 1 - Bob, 2 - Charlie]",
+                drain(sorter.sort(List.of(employees.get(2), employees.get(0), employees.get(1)).iterator())).toString());
+        Assertions.assertFalse(sorter.sort(Collections.emptyIterator()).hasNext());
+        //exactly one full run plus one employee
+        Assertions.assertEquals(11, drain(sorter.sort(randomEmployees(11).iterator())).size());
+    }
+
+    @Test
+    public void mergesInPassesWhenThereAreManyRuns() throws IOException {
+        List<Employee> employees = randomEmployees(10_000);
+        List<Employee> expected = new ArrayList<>(employees);
+        Collections.sort(expected);
+
+        Path runs = dir.resolve("runs");
+        ExternalSorter sorter = new ExternalSorter(Comparator.naturalOrder(), 100, 2, 4, runs);
+        try (ExternalSorter.SortedIterator sorted = sorter.sort(employees.iterator())) {
+            Assertions.assertTrue(spilledFiles(runs) <= 4); // 100 runs -> 25 -> 7 -> 2
+            Assertions.assertEquals(drain(expected.iterator()), drain(sorted));
+        }
+        Assertions.assertEquals(0, entries(runs));
+    }
+
+    @Test
+    public void failedSortDeletesTempFiles() throws IOException {
+        Path runs = dir.resolve("runs");
+        Comparator<Employee> failing = (a, b) -> {
+            if (a.name.startsWith("Zoe") && b.name.startsWith("Zoe")) {
+                throw new IllegalStateException("cannot compare " + a + " and " + b);
+            }
+            return a.compareTo(b);
+        };
+        ExternalSorter sorter = new ExternalSorter(failing, 100, 2, 4, runs);
+        IOException e = Assertions.assertThrows(IOException.class, () -> sorter.sort(randomEmployees(10_000).iterator()));
+        Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        Assertions.assertEquals(0, entries(runs));
+    }
+
+    @Test
+    public void sharedTempDirKeepsOtherFiles() throws IOException {
+        Path shared = Files.createDirectories(dir.resolve("shared"));
+        Path important = Files.writeString(shared.resolve("important.txt"), "keep me");
+        ExternalSorter sorter = new ExternalSorter(Comparator.naturalOrder(), 100, 2, shared);
+        //two sorts in the same directory at once don't touch each other's runs
+        try (ExternalSorter.SortedIterator first = sorter.sort(randomEmployees(1_000).iterator());
+             ExternalSorter.SortedIterator second = sorter.sort(randomEmployees(2_000).iterator())) {
+            Assertions.assertEquals(1_000, drain(first).size());
+            Assertions.assertEquals(2_000, drain(second).size());
+        }
+        Assertions.assertEquals("keep me", Files.readString(important));
+        Assertions.assertEquals(1, entries(shared));
+    }
+}
@@ -0,0 +1,16 @@
+package day03;
+
+/*
+Primitive iteration without Integer boxing:
+
+    for (IntCursor c = set.cursor(); c.next(); ) {
+        sum += c.value();
+    }
+
+next() moves to the next element (false at the end), value() reads the current one.
+ */
+public interface IntCursor {
+    boolean next();
+
+    int value();
+}
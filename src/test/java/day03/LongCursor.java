@@ -0,0 +1,8 @@
+package day03;
+
+//long version of IntCursor
+public interface LongCursor {
+    boolean next();
+
+    long value();
+}
@@ -0,0 +1,118 @@
+package day03;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+Single-threaded LRU cache. LinkedHashMap with accessOrder=true moves every entry we get() to the end,
+so the eldest entry is always the least recently used one and removeEldestEntry drops it when full.
+Optional expireAfterWrite: entries older than that are treated as missing.
+ */
+public class LruCache<K, V> implements Cache<K, V> {
+    private final int maxSize;
+    private final long expireAfterWriteNanos; // 0 -> never expires
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(int maxSize) {
+        this(maxSize, Duration.ZERO);
+    }
+
+    public LruCache(int maxSize, Duration expireAfterWrite) {
+        this(maxSize, expireAfterWrite, System::nanoTime);
+    }
+
+    LruCache(int maxSize, Duration expireAfterWrite, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.clock = clock;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null && isExpired(entry, clock.getAsLong())) {
+            map.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        map.put(key, new Entry<>(value, clock.getAsLong()));
+    }
+
+    @Override
+    public void remove(K key) {
+        map.remove(key);
+    }
+
+    //drops all expired entries now instead of waiting for the next get()
+    public void cleanUp() {
+        if (expireAfterWriteNanos == 0) return;
+        long now = clock.getAsLong();
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits, misses, evictions);
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return expireAfterWriteNanos != 0 && now - entry.writtenAt >= expireAfterWriteNanos;
+    }
+
+    @Override
+    public String toString() {
+        return map.keySet().toString(); // least recently used first
+    }
+
+    static class Entry<V> {
+        final V value;
+        final long writtenAt;
+
+        Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
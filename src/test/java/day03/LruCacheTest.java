@@ -0,0 +1,123 @@
+package day03;
+
+import day01.T04_FirstNonRepeatedChar;
+import day04.StringFrequency;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class LruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruCache<Integer, String> cache = new LruCache<>(3);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1);             // 1 is now the most recently used
+        cache.put(4, "four");     // evicts 2
+
+        Assertions.assertEquals("[3, 1, 4]", cache.toString());
+        Assertions.assertNull(cache.get(2));
+        Assertions.assertEquals("one", cache.get(1));
+        Assertions.assertEquals(3, cache.size());
+        CacheStats stats = cache.stats();
+        Assertions.assertEquals(2, stats.hits());
+        Assertions.assertEquals(1, stats.misses());
+        Assertions.assertEquals(1, stats.evictions());
+    }
+
+    @Test
+    public void expiresAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        LruCache<String, Integer> cache = new LruCache<>(10, Duration.ofSeconds(5), now::get);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        now.set(Duration.ofSeconds(4).toNanos());
+        Assertions.assertEquals(1, cache.get("a"));
+        cache.put("b", 3); // rewrite restarts the clock for b
+
+        now.set(Duration.ofSeconds(6).toNanos());
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertEquals(3, cache.get("b"));
+
+        now.set(Duration.ofSeconds(10).toNanos());
+        cache.cleanUp();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(2, cache.stats().evictions());
+    }
+
+    @Test
+    public void memoizeStringUtilities() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> encode = Cache.memoize(s -> {
+            calls.incrementAndGet();
+            return StringFrequency.encode2(s);
+        }, new LruCache<>(100));
+
+        Assertions.assertEquals("a3b2c1a2d2b3", encode.apply("aaabbcaaddbbb"));
+        Assertions.assertEquals("a3b2c1a2d2b3", encode.apply("aaabbcaaddbbb"));
+        Assertions.assertEquals(1, calls.get());
+
+        Cache<String, Character> cache = new SegmentedLruCache<>(100);
+        Function<String, Character> firstNonRepeated = Cache.memoize(T04_FirstNonRepeatedChar::firstNonRepeatedChar, cache);
+        Assertions.assertEquals('b', firstNonRepeated.apply("aabccddu"));
+        Assertions.assertEquals('b', firstNonRepeated.apply("aabccddu"));
+        Assertions.assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    public void segmentedCacheKeepsFrequentKeys() {
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(100);
+        LruCache<Integer, Integer> lru = new LruCache<>(100);
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                cache.computeIfAbsent(hot, k -> k);
+                lru.computeIfAbsent(hot, k -> k);
+            }
+        }
+        //a scan of one-time keys bigger than the cache
+        for (int cold = 1000; cold < 1500; cold++) {
+            cache.put(cold, cold);
+            lru.put(cold, cold);
+        }
+        Assertions.assertTrue(cache.size() <= 100);
+        int hotLeft = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            if (cache.get(hot) != null) hotLeft++;
+            Assertions.assertNull(lru.get(hot));
+        }
+        Assertions.assertTrue(hotLeft >= 45, "hot keys left: " + hotLeft);
+    }
+
+    @Test
+    public void segmentedCacheUnderConcurrency() throws InterruptedException {
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(1000);
+        AtomicInteger wrongValues = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    int key = (i * 31 + seed) % 5000;
+                    if (cache.computeIfAbsent(key, k -> k * 2) != key * 2) {
+                        wrongValues.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        Assertions.assertEquals(0, wrongValues.get());
+        Assertions.assertTrue(cache.size() <= 1000);
+        CacheStats stats = cache.stats();
+        Assertions.assertEquals(800_000, stats.hits() + stats.misses());
+    }
+}
@@ -0,0 +1,187 @@
+package day03;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+Thread-safe cache for many threads. Keys are spread over independent segments, each with its own lock,
+so threads working on different keys rarely wait for each other.
+
+Every segment is a small W-TinyLFU cache:
+ - new entries go to a small LRU "window" (1% of the segment)
+ - an entry pushed out of the window only gets into the main LRU if it was used more often
+   than the main LRU's eldest entry, frequencies come from a CountMinSketch that is halved periodically
+so a burst of one-time keys cannot flush the popular ones out (plain LRU would).
+ */
+public class SegmentedLruCache<K, V> implements Cache<K, V> {
+    private final Segment<K, V>[] segments;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier clock;
+
+    public SegmentedLruCache(int maxSize) {
+        this(maxSize, Duration.ZERO);
+    }
+
+    public SegmentedLruCache(int maxSize, Duration expireAfterWrite) {
+        this(maxSize, expireAfterWrite, System::nanoTime);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SegmentedLruCache(int maxSize, Duration expireAfterWrite, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        //power of two segments, about 2 per core but never smaller than 64 entries each
+        int count = Integer.highestOneBit(Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * 2, maxSize / 64)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            int capacity = maxSize / count + (i < maxSize % count ? 1 : 0);
+            segments[i] = new Segment<>(capacity);
+        }
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key, clock.getAsLong(), expireAfterWriteNanos);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value, clock.getAsLong());
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.window.remove(key);
+            segment.main.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.window.size() + segment.main.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public CacheStats stats() {
+        CacheStats stats = new CacheStats(0, 0, 0);
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                stats = stats.plus(new CacheStats(segment.hits, segment.misses, segment.evictions));
+            }
+        }
+        return stats;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    //all fields guarded by the segment's monitor
+    private static class Segment<K, V> {
+        final LinkedHashMap<K, LruCache.Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<K, LruCache.Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+        final int windowMax;
+        final int mainMax;
+        final CountMinSketch sketch;
+        final int sampleSize; // halve the sketch after this many accesses
+        int accesses;
+
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int capacity) {
+            windowMax = Math.max(1, capacity / 100);
+            mainMax = Math.max(0, capacity - windowMax);
+            sketch = new CountMinSketch(Math.max(16, capacity));
+            sampleSize = 10 * Math.max(16, capacity);
+        }
+
+        V get(K key, long now, long expireAfterWriteNanos) {
+            record(key);
+            LruCache.Entry<V> entry = window.get(key);
+            Map<K, LruCache.Entry<V>> owner = window;
+            if (entry == null) {
+                entry = main.get(key);
+                owner = main;
+            }
+            if (entry != null && expireAfterWriteNanos != 0 && now - entry.writtenAt >= expireAfterWriteNanos) {
+                owner.remove(key);
+                evictions++;
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value;
+        }
+
+        void put(K key, V value, long now) {
+            record(key);
+            LruCache.Entry<V> entry = new LruCache.Entry<>(value, now);
+            if (main.containsKey(key)) {
+                main.put(key, entry);
+                return;
+            }
+            window.put(key, entry);
+            if (window.size() <= windowMax) {
+                return;
+            }
+            //window full: its eldest entry is the candidate for the main area
+            Iterator<Map.Entry<K, LruCache.Entry<V>>> it = window.entrySet().iterator();
+            Map.Entry<K, LruCache.Entry<V>> candidate = it.next();
+            it.remove();
+            if (main.size() < mainMax) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            evictions++;
+            if (mainMax == 0) {
+                return;
+            }
+            Iterator<K> victims = main.keySet().iterator();
+            K victim = victims.next();
+            if (frequency(candidate.getKey()) > frequency(victim)) {
+                victims.remove();
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        private void record(K key) {
+            sketch.increment(CountMinSketch.hash(key));
+            if (++accesses >= sampleSize) {
+                sketch.halve();
+                accesses = 0;
+            }
+        }
+
+        private long frequency(K key) {
+            return sketch.estimate(CountMinSketch.hash(key));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package day03;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//Summing a set with the SetObjects iteration styles (boxed) vs the primitive SortedIntSet / SortedLongSet ones
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetIterationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    TreeSet<Integer> treeSet;
+    HashSet<Integer> hashSet;
+    SortedIntSet intSet;
+    TreeSet<Long> longTreeSet;
+    SortedLongSet longSet;
+
+    @Setup
+    public void setUp() {
+        int[] values = new Random(1).ints(size).toArray();
+        treeSet = Arrays.stream(values).boxed().collect(Collectors.toCollection(TreeSet::new));
+        hashSet = new HashSet<>(treeSet);
+        intSet = SortedIntSet.copyOf(treeSet);
+        longTreeSet = treeSet.stream().map(i -> i * 1_000_000L).collect(Collectors.toCollection(TreeSet::new));
+        longSet = SortedLongSet.copyOf(longTreeSet);
+    }
+
+    //-------- boxed, as in SetObjects --------
+
+    @Benchmark
+    public long treeSetEnhancedFor() {
+        long sum = 0;
+        for (int each : treeSet) {
+            sum += each;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long treeSetForEachLambda() {
+        long[] sum = {0};
+        treeSet.forEach(each -> sum[0] += each);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long treeSetIterator() {
+        long sum = 0;
+        Iterator<Integer> it = treeSet.iterator();
+        while (it.hasNext()) {
+            sum += it.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long hashSetEnhancedFor() {
+        long sum = 0;
+        for (int each : hashSet) {
+            sum += each;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long treeSetParallelStream() {
+        return treeSet.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    //-------- primitive --------
+
+    @Benchmark
+    public long intSetCursor() {
+        long sum = 0;
+        for (IntCursor c = intSet.cursor(); c.next(); ) {
+            sum += c.value();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intSetForEachInt() {
+        long[] sum = {0};
+        intSet.forEachInt(each -> sum[0] += each);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long intSetToArray() {
+        long sum = 0;
+        for (int each : intSet.toArray()) {
+            sum += each;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intSetParallelStream() {
+        return intSet.parallelStream().asLongStream().sum();
+    }
+
+    //-------- long sets --------
+
+    @Benchmark
+    public long longTreeSetEnhancedFor() {
+        long sum = 0;
+        for (long each : longTreeSet) {
+            sum += each;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long longSetCursor() {
+        long sum = 0;
+        for (LongCursor c = longSet.cursor(); c.next(); ) {
+            sum += c.value();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long longSetForEachLong() {
+        long[] sum = {0};
+        longSet.forEachLong(each -> sum[0] += each);
+        return sum[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SetIterationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
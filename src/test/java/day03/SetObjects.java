@@ -60,5 +60,12 @@ public class SetObjects {
         while (it.hasNext()) {
             System.out.println("each = " + it.next());
         }
+
+        System.out.println("-------PRIMITIVE (no boxing)-----------");
+        SortedIntSet set5 = SortedIntSet.copyOf(set4); // see SetIterationBenchmark for the cost of each style
+        for (IntCursor c = set5.cursor(); c.next(); ) {
+            System.out.println("each = " + c.value());
+        }
+        set5.forEachInt(each -> System.out.println("each = " + each));
     }
 }
\ No newline at end of file
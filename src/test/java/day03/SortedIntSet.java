@@ -0,0 +1,133 @@
+package day03;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/*
+Immutable sorted set of ints in one int[] - the primitive replacement for a read-mostly TreeSet<Integer>.
+Iterating a TreeSet<Integer> unboxes every element and walks one tree node per element;
+here iteration is a plain array loop:
+ - cursor() / forEachInt(IntConsumer): no boxing
+ - toArray(): one array copy
+ - spliterator() / stream(): SIZED|SUBSIZED|SORTED|DISTINCT|ORDERED, so parallel streams split in exact halves
+contains() is a binary search (same O(log n) as TreeSet).
+ */
+public class SortedIntSet {
+    private static final int CHARACTERISTICS = Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED
+            | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    private final int[] values; // sorted, no duplicates
+
+    private SortedIntSet(int[] values) {
+        this.values = values;
+    }
+
+    public static SortedIntSet of(int... values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new SortedIntSet(distinct(sorted));
+    }
+
+    //a SortedSet with natural order (e.g. TreeSet<Integer>) is already sorted and distinct, no sort needed
+    public static SortedIntSet copyOf(Collection<Integer> collection) {
+        int[] values = new int[collection.size()];
+        int i = 0;
+        for (int each : collection) {
+            values[i++] = each;
+        }
+        if (collection instanceof SortedSet && ((SortedSet<?>) collection).comparator() == null) {
+            return new SortedIntSet(values);
+        }
+        Arrays.sort(values);
+        return new SortedIntSet(distinct(values));
+    }
+
+    //removes duplicates from a sorted array
+    private static int[] distinct(int[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public int first() {
+        if (values.length == 0) throw new NoSuchElementException();
+        return values[0];
+    }
+
+    public int last() {
+        if (values.length == 0) throw new NoSuchElementException();
+        return values[values.length - 1];
+    }
+
+    public IntCursor cursor() {
+        return new IntCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                return ++index < values.length;
+            }
+
+            @Override
+            public int value() {
+                return values[index];
+            }
+        };
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int value : values) {
+            action.accept(value);
+        }
+    }
+
+    //a copy, the set stays immutable
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(values, CHARACTERISTICS);
+    }
+
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SortedIntSet && Arrays.equals(values, ((SortedIntSet) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
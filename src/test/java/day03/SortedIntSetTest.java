@@ -0,0 +1,75 @@
+package day03;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class SortedIntSetTest {
+
+    @Test
+    public void sameElementsAndOrderAsTreeSet() {
+        Random random = new Random(7);
+        int[] values = random.ints(10_000, -500, 5_000).toArray();
+        TreeSet<Integer> treeSet = Arrays.stream(values).boxed().collect(Collectors.toCollection(TreeSet::new));
+        List<Integer> expected = new ArrayList<>(treeSet);
+
+        SortedIntSet set = SortedIntSet.of(values);
+        Assertions.assertEquals(set, SortedIntSet.copyOf(treeSet));
+        Assertions.assertEquals(set, SortedIntSet.copyOf(Arrays.stream(values).boxed().collect(Collectors.toList())));
+        Assertions.assertEquals(treeSet.size(), set.size());
+        Assertions.assertEquals(treeSet.first(), set.first());
+        Assertions.assertEquals(treeSet.last(), set.last());
+
+        List<Integer> viaCursor = new ArrayList<>();
+        for (IntCursor c = set.cursor(); c.next(); ) {
+            viaCursor.add(c.value());
+        }
+        List<Integer> viaForEach = new ArrayList<>();
+        set.forEachInt(viaForEach::add);
+        Assertions.assertEquals(expected, viaCursor);
+        Assertions.assertEquals(expected, viaForEach);
+        Assertions.assertEquals(expected, Arrays.stream(set.toArray()).boxed().toList());
+        Assertions.assertEquals(expected, set.parallelStream().boxed().toList());
+        Assertions.assertEquals(treeSet.stream().mapToLong(Integer::longValue).sum(),
+                set.parallelStream().asLongStream().sum());
+
+        for (int i = -600; i < 5_100; i++) {
+            Assertions.assertEquals(treeSet.contains(i), set.contains(i));
+        }
+        set.toArray()[0] = 42; // a copy, the set doesn't change
+        Assertions.assertEquals(treeSet.first(), set.first());
+    }
+
+    @Test
+    public void spliteratorSplitsEvenly() {
+        Spliterator.OfInt right = SortedIntSet.of(new Random(1).ints(1_000_000).toArray()).spliterator();
+        Assertions.assertTrue(right.hasCharacteristics(
+                Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED));
+        Assertions.assertNull(right.getComparator()); // natural order
+        long size = right.estimateSize();
+        Spliterator.OfInt left = right.trySplit();
+        Assertions.assertEquals(size, left.estimateSize() + right.estimateSize());
+        Assertions.assertTrue(Math.abs(left.estimateSize() - right.estimateSize()) <= 1);
+    }
+
+    @Test
+    public void longSetMatchesTreeSet() {
+        long[] values = {5_000_000_000L, -1, 3, 3, Long.MAX_VALUE, Long.MIN_VALUE, -1};
+        TreeSet<Long> treeSet = Arrays.stream(values).boxed().collect(Collectors.toCollection(TreeSet::new));
+        SortedLongSet set = SortedLongSet.of(values);
+        Assertions.assertEquals(set, SortedLongSet.copyOf(treeSet));
+        Assertions.assertEquals(treeSet.toString(), set.toString());
+
+        List<Long> viaCursor = new ArrayList<>();
+        for (LongCursor c = set.cursor(); c.next(); ) {
+            viaCursor.add(c.value());
+        }
+        Assertions.assertEquals(new ArrayList<>(treeSet), viaCursor);
+        Assertions.assertTrue(set.contains(5_000_000_000L));
+        Assertions.assertFalse(set.contains(4));
+        Assertions.assertTrue(SortedLongSet.of().isEmpty());
+        Assertions.assertThrows(NoSuchElementException.class, () -> SortedLongSet.of().first());
+    }
+}
@@ -0,0 +1,125 @@
+package day03;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+//long version of SortedIntSet (e.g. for ids and timestamps)
+public class SortedLongSet {
+    private static final int CHARACTERISTICS = Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED
+            | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    private final long[] values; // sorted, no duplicates
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static SortedLongSet of(long... values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new SortedLongSet(distinct(sorted));
+    }
+
+    //a SortedSet with natural order (e.g. TreeSet<Long>) is already sorted and distinct, no sort needed
+    public static SortedLongSet copyOf(Collection<Long> collection) {
+        long[] values = new long[collection.size()];
+        int i = 0;
+        for (long each : collection) {
+            values[i++] = each;
+        }
+        if (collection instanceof SortedSet && ((SortedSet<?>) collection).comparator() == null) {
+            return new SortedLongSet(values);
+        }
+        Arrays.sort(values);
+        return new SortedLongSet(distinct(values));
+    }
+
+    //removes duplicates from a sorted array
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public long first() {
+        if (values.length == 0) throw new NoSuchElementException();
+        return values[0];
+    }
+
+    public long last() {
+        if (values.length == 0) throw new NoSuchElementException();
+        return values[values.length - 1];
+    }
+
+    public LongCursor cursor() {
+        return new LongCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                return ++index < values.length;
+            }
+
+            @Override
+            public long value() {
+                return values[index];
+            }
+        };
+    }
+
+    public void forEachLong(LongConsumer action) {
+        for (long value : values) {
+            action.accept(value);
+        }
+    }
+
+    //a copy, the set stays immutable
+    public long[] toArray() {
+        return values.clone();
+    }
+
+    public Spliterator.OfLong spliterator() {
+        return Spliterators.spliterator(values, CHARACTERISTICS);
+    }
+
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SortedLongSet && Arrays.equals(values, ((SortedLongSet) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
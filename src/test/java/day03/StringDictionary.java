@@ -0,0 +1,44 @@
+package day03;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Maps every distinct string to a small int code and back, so a million employees named "Alice"
+share one String. Codes are never removed. Lookups by code are lock-free, adding a new string
+takes a lock (rare once the dictionary is warm).
+ */
+public class StringDictionary {
+    public static final StringDictionary GLOBAL = new StringDictionary();
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[1024];
+    private int size; // guarded by this
+
+    public int code(String s) {
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(s);
+            if (code == null) {
+                if (size == strings.length) {
+                    strings = Arrays.copyOf(strings, size * 2);
+                }
+                strings[size] = s;
+                code = size++;
+                codes.put(s, code); // publishes strings[code] to threads that get the code from the map
+            }
+            return code;
+        }
+    }
+
+    public String valueOf(int code) {
+        return strings[code];
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
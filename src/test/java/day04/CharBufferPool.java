@@ -0,0 +1,50 @@
+package day04;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Reuses heap CharBuffers of one size between pipeline stages, so streaming a big input
+doesn't allocate a new buffer per chunk. Bigger requests (very long lines) get a fresh buffer
+that is simply dropped on release. Thread-safe, parallel stages take and return buffers concurrently.
+ */
+class CharBufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<CharBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    CharBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    //cleared buffer with at least minCapacity chars
+    CharBuffer acquire(int minCapacity) {
+        if (minCapacity > bufferSize) {
+            return CharBuffer.allocate(minCapacity);
+        }
+        CharBuffer buffer = free.poll();
+        if (buffer == null) {
+            return CharBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer.clear();
+    }
+
+    void release(CharBuffer buffer) {
+        if (buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet(); // enough spares already
+            return;
+        }
+        free.offer(buffer);
+    }
+}
@@ -0,0 +1,189 @@
+package day04;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/*
+Filters and maps that IntColumnQuery / LongColumnQuery can run as vector kernels.
+A lambda like n -> n % 2 == 0 is opaque, so the vectorizable ones are spelled out:
+
+    n % 2 == 0   -> even()           n -> n * 2   -> times(2)
+    n % 2 != 0   -> odd()            n -> n + 1   -> plus(1)
+    num < 0      -> lessThan(0)
+
+Also holds the morsel scheduler both queries share.
+ */
+public class ColumnOps {
+
+    public enum Cmp {
+        LT, LE, GT, GE, EQ, NE;
+
+        boolean test(long a, long b) {
+            switch (this) {
+                case LT: return a < b;
+                case LE: return a <= b;
+                case GT: return a > b;
+                case GE: return a >= b;
+                case EQ: return a == b;
+                default: return a != b;
+            }
+        }
+    }
+
+    public enum Op {
+        ADD, SUB, MUL, AND, OR, XOR, MIN, MAX;
+
+        int apply(int a, int b) {
+            switch (this) {
+                case ADD: return a + b;
+                case SUB: return a - b;
+                case MUL: return a * b;
+                case AND: return a & b;
+                case OR: return a | b;
+                case XOR: return a ^ b;
+                case MIN: return Math.min(a, b);
+                default: return Math.max(a, b);
+            }
+        }
+
+        long apply(long a, long b) {
+            switch (this) {
+                case ADD: return a + b;
+                case SUB: return a - b;
+                case MUL: return a * b;
+                case AND: return a & b;
+                case OR: return a | b;
+                case XOR: return a ^ b;
+                case MIN: return Math.min(a, b);
+                default: return Math.max(a, b);
+            }
+        }
+    }
+
+    //(n & mask) cmp value, mask -1 = the value itself
+    public static final class Condition {
+        final long mask;
+        final Cmp cmp;
+        final long value;
+
+        Condition(long mask, Cmp cmp, long value) {
+            this.mask = mask;
+            this.cmp = cmp;
+            this.value = value;
+        }
+
+        boolean test(long n) {
+            return cmp.test(n & mask, value);
+        }
+    }
+
+    //n op operand
+    public static final class Transform {
+        final Op op;
+        final long operand;
+
+        Transform(Op op, long operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+    }
+
+    public static Condition even() {
+        return new Condition(1, Cmp.EQ, 0);
+    }
+
+    public static Condition odd() {
+        return new Condition(1, Cmp.NE, 0);
+    }
+
+    public static Condition lessThan(long value) {
+        return new Condition(-1, Cmp.LT, value);
+    }
+
+    public static Condition lessThanOrEqual(long value) {
+        return new Condition(-1, Cmp.LE, value);
+    }
+
+    public static Condition greaterThan(long value) {
+        return new Condition(-1, Cmp.GT, value);
+    }
+
+    public static Condition greaterThanOrEqual(long value) {
+        return new Condition(-1, Cmp.GE, value);
+    }
+
+    public static Condition equalTo(long value) {
+        return new Condition(-1, Cmp.EQ, value);
+    }
+
+    public static Condition notEqualTo(long value) {
+        return new Condition(-1, Cmp.NE, value);
+    }
+
+    public static Transform times(long factor) {
+        return new Transform(Op.MUL, factor);
+    }
+
+    public static Transform plus(long value) {
+        return new Transform(Op.ADD, value);
+    }
+
+    public static Transform minus(long value) {
+        return new Transform(Op.SUB, value);
+    }
+
+    public static Transform atLeast(long value) {
+        return new Transform(Op.MAX, value);
+    }
+
+    public static Transform atMost(long value) {
+        return new Transform(Op.MIN, value);
+    }
+
+    public static Transform bitAnd(long mask) {
+        return new Transform(Op.AND, mask);
+    }
+
+    //----------------------------------------------- morsel scheduling
+
+    interface MorselTask<W> {
+        void run(W worker, int morsel, int start, int length);
+    }
+
+    /*
+    Runs task over [0, rows) in morsels of morselSize rows. Parallel: one worker per core takes the next
+    morsel from a shared counter until none are left or stop says so. Returns the workers with their results.
+     */
+    static <W> List<W> forEachMorsel(int rows, int morselSize, boolean parallel, Supplier<W> newWorker,
+                                     MorselTask<W> task, BooleanSupplier stop) {
+        int morsels = (rows + morselSize - 1) / morselSize;
+        AtomicInteger next = new AtomicInteger();
+        Supplier<W> worker = () -> {
+            W w = newWorker.get();
+            int morsel;
+            while (!stop.getAsBoolean() && (morsel = next.getAndIncrement()) < morsels) {
+                int start = morsel * morselSize;
+                task.run(w, morsel, start, Math.min(morselSize, rows - start));
+            }
+            return w;
+        };
+        int workers = parallel ? Math.min(ForkJoinPool.getCommonPoolParallelism(), morsels) : 1;
+        if (workers <= 1) {
+            return List.of(worker.get());
+        }
+        List<ForkJoinTask<W>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            tasks.add(ForkJoinPool.commonPool().submit(worker::get));
+        }
+        List<W> results = new ArrayList<>();
+        for (ForkJoinTask<W> t : tasks) {
+            results.add(t.join());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,95 @@
+package day04;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static day04.ColumnOps.*;
+
+//The StreamsDemo shapes (filter even -> map *2 -> sum, filter odd -> toList, anyMatch < 0):
+//boxed List<Integer> streams vs IntStream vs IntColumnQuery, sequential and parallel
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ColumnQueryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    int[] column;
+    List<Integer> boxed;
+
+    @Setup
+    public void setUp() {
+        column = new Random(1).ints(size, 0, 1_000_000).toArray(); // no negatives: anyMatch scans everything
+        boxed = Arrays.stream(column).boxed().toList();
+    }
+
+    @Benchmark
+    public long sumBoxedStream() {
+        return boxed.stream().filter(n -> n % 2 == 0).map(n -> n * 2).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long sumIntStream() {
+        return Arrays.stream(column).filter(n -> n % 2 == 0).map(n -> n * 2).asLongStream().sum();
+    }
+
+    @Benchmark
+    public long sumIntStreamParallel() {
+        return Arrays.stream(column).parallel().filter(n -> n % 2 == 0).map(n -> n * 2).asLongStream().sum();
+    }
+
+    @Benchmark
+    public long sumColumn() {
+        return IntColumnQuery.over(column).filter(even()).map(times(2)).sum();
+    }
+
+    @Benchmark
+    public long sumColumnParallel() {
+        return IntColumnQuery.over(column).filter(even()).map(times(2)).parallel().sum();
+    }
+
+    @Benchmark
+    public List<Integer> oddsBoxedStream() {
+        return boxed.stream().filter(n -> n % 2 != 0).toList();
+    }
+
+    @Benchmark
+    public int[] oddsIntStream() {
+        return Arrays.stream(column).filter(n -> n % 2 != 0).toArray();
+    }
+
+    @Benchmark
+    public int[] oddsColumn() {
+        return IntColumnQuery.over(column).filter(odd()).toArray();
+    }
+
+    @Benchmark
+    public boolean anyNegativeBoxedStream() {
+        return boxed.stream().anyMatch(num -> num < 0);
+    }
+
+    @Benchmark
+    public boolean anyNegativeIntStream() {
+        return Arrays.stream(column).anyMatch(num -> num < 0);
+    }
+
+    @Benchmark
+    public boolean anyNegativeColumn() {
+        return IntColumnQuery.over(column).anyMatch(lessThan(0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ColumnQueryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
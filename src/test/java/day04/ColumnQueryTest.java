@@ -0,0 +1,84 @@
+package day04;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static day04.ColumnOps.*;
+
+public class ColumnQueryTest {
+
+    @Test
+    public void streamsDemoPipelines() {
+        List<Integer> nums = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        Assertions.assertEquals(nums.stream().filter(n -> n % 2 == 0).toList(), IntColumnQuery.over(nums).filter(even()).toList());
+        Assertions.assertEquals(nums.stream().filter(n -> n % 2 != 0).toList(), IntColumnQuery.over(nums).filter(odd()).toList());
+        Assertions.assertEquals(nums.stream().map(n -> n * 2).toList(), IntColumnQuery.over(nums).map(times(2)).toList());
+        Assertions.assertTrue(IntColumnQuery.over(Arrays.asList(200, 400, 1, 20, 33, 74, 98, -2, 8)).anyMatch(lessThan(0)));
+        Assertions.assertFalse(IntColumnQuery.over(nums).anyMatch(num -> num < 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> IntColumnQuery.over(nums).filter(lessThan(1L << 40)));
+    }
+
+    @Test
+    public void sameResultsAsIntStream() {
+        Random random = new Random(4);
+        //not a multiple of the morsel or vector size
+        int[] column = random.ints(3 * IntColumnQuery.MORSEL + 13).toArray();
+        int[] small = random.ints(100_003, -1000, 1000).toArray();
+        for (boolean parallel : new boolean[]{false, true}) {
+            Assertions.assertEquals(Arrays.stream(column).filter(n -> n % 2 == 0).map(n -> n * 2).asLongStream().sum(),
+                    query(column, parallel).filter(even()).map(times(2)).sum());
+            Assertions.assertEquals(Arrays.stream(column).asLongStream().sum(), query(column, parallel).sum());
+            //sparse selection: maps and reductions only touch the selected rows
+            Assertions.assertArrayEquals(Arrays.stream(small).filter(n -> n == 7).map(n -> n + 1).filter(n -> n % 2 == 0).toArray(),
+                    query(small, parallel).filter(equalTo(7)).map(plus(1)).filter(even()).toArray());
+            Assertions.assertArrayEquals(Arrays.stream(small).map(n -> n * 3).filter(n -> n > 100).map(n -> Math.min(n, 2000)).toArray(),
+                    query(small, parallel).map(n -> n * 3).filter(greaterThan(100)).map(atMost(2000)).toArray());
+            Assertions.assertEquals(Arrays.stream(small).filter(n -> n % 2 != 0).count(), query(small, parallel).filter(odd()).count());
+            Assertions.assertEquals(Arrays.stream(small).filter(n -> n < -500).min(), query(small, parallel).filter(lessThan(-500)).min());
+            Assertions.assertEquals(Arrays.stream(small).filter(n -> n < -500).max(), query(small, parallel).filter(lessThan(-500)).max());
+            Assertions.assertEquals(IntStream.of(column).max(), query(column, parallel).max());
+            Assertions.assertEquals(OptionalInt.empty(), query(small, parallel).filter(greaterThan(5000)).min());
+            Assertions.assertFalse(query(small, parallel).anyMatch(greaterThanOrEqual(1000)));
+            Assertions.assertTrue(query(small, parallel).filter(odd()).anyMatch(equalTo(999)));
+        }
+    }
+
+    private static IntColumnQuery query(int[] column, boolean parallel) {
+        IntColumnQuery query = IntColumnQuery.over(column);
+        return parallel ? query.parallel() : query;
+    }
+
+    @Test
+    public void longColumns() {
+        long[] column = new Random(5).longs(2 * LongColumnQuery.MORSEL + 5, -1L << 40, 1L << 40).toArray();
+        for (boolean parallel : new boolean[]{false, true}) {
+            LongColumnQuery query = LongColumnQuery.over(column).filter(greaterThan(0)).map(times(3));
+            if (parallel) query.parallel();
+            Assertions.assertArrayEquals(Arrays.stream(column).filter(n -> n > 0).map(n -> n * 3).toArray(), query.toArray());
+            Assertions.assertEquals(Arrays.stream(column).filter(n -> n > 0).map(n -> n * 3).sum(),
+                    LongColumnQuery.over(column).filter(greaterThan(0)).map(times(3)).sum());
+        }
+        Assertions.assertEquals(Arrays.stream(column).min(), LongColumnQuery.over(column).parallel().min());
+        Assertions.assertEquals(List.of(4L, 8L), LongColumnQuery.over(List.of(1L, 2L, 3L, 4L)).filter(even()).map(times(2)).toList());
+    }
+
+    @Test
+    public void queryCanBeReusedAfterAnyMatch() {
+        IntColumnQuery ints = IntColumnQuery.over(new int[]{1, 2, 3, 4, -5});
+        Assertions.assertEquals(5, ints.count());
+        Assertions.assertTrue(ints.anyMatch(n -> n < 0));
+        Assertions.assertFalse(ints.anyMatch(n -> n > 100));
+        Assertions.assertEquals(5, ints.count());
+        Assertions.assertEquals(List.of(1, 2, 3, 4, -5), ints.toList());
+
+        LongColumnQuery longs = LongColumnQuery.over(new long[]{1, 2, 3, 4, -5}).filter(greaterThan(1));
+        Assertions.assertTrue(longs.anyMatch(n -> n == 4));
+        Assertions.assertEquals(List.of(2L, 3L, 4L), longs.toList());
+    }
+}
@@ -0,0 +1,38 @@
+package day04;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Registry of MethodMetrics. Off by default: when disabled an instrumented method only pays
+one volatile read (a plain load on x86) before calling the original method.
+Enable with -Dinstrumentation.enabled=true or Instrumentation.setEnabled(true).
+ */
+public class Instrumentation {
+    private static volatile boolean enabled = Boolean.getBoolean("instrumentation.enabled");
+    private static final Map<String, MethodMetrics> METRICS = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Instrumentation.enabled = enabled;
+    }
+
+    public static MethodMetrics metrics(String name) {
+        return METRICS.computeIfAbsent(name, MethodMetrics::new);
+    }
+
+    //one snapshot per method, sorted by name
+    public static List<MethodMetrics.Snapshot> snapshot() {
+        List<MethodMetrics.Snapshot> snapshots = new ArrayList<>();
+        for (MethodMetrics metrics : METRICS.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        snapshots.sort((a, b) -> a.name().compareTo(b.name()));
+        return snapshots;
+    }
+}
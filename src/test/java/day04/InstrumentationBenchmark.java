@@ -0,0 +1,71 @@
+package day04;
+
+import day01.T01_StringReverse;
+import day01.T05_ArrayMaxNum;
+import day03.ValidParenthesis;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Cost of InstrumentedUtils vs calling the utilities directly: disabled must stay within ~1% of direct
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"false", "true"})
+    boolean enabled;
+
+    String text;
+    String parentheses;
+    int[] numbers;
+
+    @Setup
+    public void setUp() {
+        Instrumentation.setEnabled(enabled);
+        text = "java is fun and streams are fun too";
+        parentheses = "{[()()]}".repeat(8);
+        numbers = new Random(1).ints(64).toArray();
+    }
+
+    @Benchmark
+    public String reverseStringDirect() {
+        return T01_StringReverse.reverseString(text);
+    }
+
+    @Benchmark
+    public String reverseStringInstrumented() {
+        return InstrumentedUtils.reverseString(text);
+    }
+
+    @Benchmark
+    public boolean isValidDirect() {
+        return ValidParenthesis.isValid(parentheses);
+    }
+
+    @Benchmark
+    public boolean isValidInstrumented() {
+        return InstrumentedUtils.isValid(parentheses);
+    }
+
+    @Benchmark
+    public int findMaxDirect() {
+        return T05_ArrayMaxNum.findMax(numbers);
+    }
+
+    @Benchmark
+    public int findMaxInstrumented() {
+        return InstrumentedUtils.findMax(numbers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InstrumentationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,11 @@
+package day04;
+
+//JMX view of Instrumentation, shows up in JConsole/VisualVM under day04:type=Instrumentation
+public interface InstrumentationMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    //one line per method, same format as MethodMetrics.Snapshot.toString()
+    String[] getSnapshot();
+}
@@ -0,0 +1,120 @@
+package day04;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class InstrumentationTest {
+
+    @AfterEach
+    public void disable() {
+        Instrumentation.setEnabled(false);
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+        Assertions.assertEquals(100_000, histogram.count());
+        Assertions.assertEquals(100_000, histogram.max());
+        Assertions.assertEquals(50_000, histogram.percentile(50), 50_000 * 0.04);
+        Assertions.assertEquals(99_000, histogram.percentile(99), 99_000 * 0.04);
+        Assertions.assertEquals(7, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(7)));
+        Assertions.assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void recordsOnlyWhenEnabled() {
+        long before = InstrumentedUtils.REVERSE_STRING.snapshot().invocations();
+        Assertions.assertEquals("avaj", InstrumentedUtils.reverseString("java"));
+        Assertions.assertEquals(before, InstrumentedUtils.REVERSE_STRING.snapshot().invocations());
+
+        Instrumentation.setEnabled(true);
+        Assertions.assertEquals("avaj", InstrumentedUtils.reverseString("java"));
+        Assertions.assertEquals("fun is java", InstrumentedUtils.reverseSentence("java is fun"));
+        Assertions.assertEquals('b', InstrumentedUtils.firstNonRepeatedChar("aabccddu"));
+        Assertions.assertTrue(InstrumentedUtils.isValid("[]{}"));
+        Assertions.assertEquals("a3b2c1a2d2b3", InstrumentedUtils.encode2("aaabbcaaddbbb"));
+        Assertions.assertEquals(8, InstrumentedUtils.findMax(new int[]{8, 2, 4, 5, 5, 0}));
+
+        MethodMetrics.Snapshot snapshot = InstrumentedUtils.REVERSE_STRING.snapshot();
+        Assertions.assertEquals(before + 1, snapshot.invocations());
+        Assertions.assertEquals(4, snapshot.inputSizes().max());
+        Assertions.assertEquals(6, InstrumentedUtils.FIND_MAX.snapshot().inputSizes().max());
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws InterruptedException {
+        Instrumentation.setEnabled(true);
+        long before = InstrumentedUtils.ENCODE1.snapshot().invocations();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    InstrumentedUtils.encode1("aaabbcaaddb");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(before + 4000, InstrumentedUtils.ENCODE1.snapshot().invocations());
+    }
+
+    @Test
+    public void shortLivedThreadsDontAddRecorders() throws InterruptedException {
+        Instrumentation.setEnabled(true);
+        long before = InstrumentedUtils.ENCODE2.snapshot().invocations();
+        for (int t = 0; t < 200; t++) {
+            Thread thread = new Thread(() -> InstrumentedUtils.encode2("aab"));
+            thread.start();
+            thread.join();
+        }
+        Assertions.assertEquals(before + 200, InstrumentedUtils.ENCODE2.snapshot().invocations());
+        //the ended threads were folded into the retired counts, only live threads keep a recorder
+        Assertions.assertTrue(InstrumentedUtils.ENCODE2.recorderCount() <= 2, "" + InstrumentedUtils.ENCODE2.recorderCount());
+    }
+
+    @Test
+    public void exportKeepsRunningAfterFailure(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("missing").resolve("metrics.log"); // first exports fail, no such directory
+        MetricsExporter exporter = new MetricsExporter().exportToFile(file, Duration.ofMillis(10));
+        try {
+            Thread.sleep(50);
+            Files.createDirectory(file.getParent());
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!Files.exists(file) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertTrue(Files.exists(file));
+        } finally {
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void exportsToFileAndJmx(@TempDir Path dir) throws Exception {
+        Instrumentation.setEnabled(true);
+        InstrumentedUtils.isValid("[]{}(");
+        Path file = dir.resolve("metrics.log");
+        MetricsExporter.writeSnapshot(file);
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertTrue(lines.stream().anyMatch(line -> line.contains(" isValid count=")), lines.toString());
+
+        MetricsExporter.registerMBean();
+        String[] snapshot = (String[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsExporter.OBJECT_NAME), "Snapshot");
+        Assertions.assertTrue(snapshot.length >= 1);
+    }
+}
@@ -0,0 +1,78 @@
+package day04;
+
+import day01.T01_StringReverse;
+import day01.T03_ReverseSentence;
+import day01.T04_FirstNonRepeatedChar;
+import day01.T05_ArrayMaxNum;
+import day03.ValidParenthesis;
+
+/*
+Drop-in replacements for the string/array utilities that record invocation count,
+input size and latency when Instrumentation is enabled.
+Same results as the originals: InstrumentedUtils.reverseString(s) == T01_StringReverse.reverseString(s)
+ */
+public class InstrumentedUtils {
+    static final MethodMetrics REVERSE_STRING = Instrumentation.metrics("reverseString");
+    static final MethodMetrics REVERSE_SENTENCE = Instrumentation.metrics("reverseSentence");
+    static final MethodMetrics FIRST_NON_REPEATED_CHAR = Instrumentation.metrics("firstNonRepeatedChar");
+    static final MethodMetrics IS_VALID = Instrumentation.metrics("isValid");
+    static final MethodMetrics ENCODE1 = Instrumentation.metrics("encode1");
+    static final MethodMetrics ENCODE2 = Instrumentation.metrics("encode2");
+    static final MethodMetrics FIND_MAX = Instrumentation.metrics("findMax");
+
+    public static String reverseString(String str) {
+        if (!Instrumentation.isEnabled()) return T01_StringReverse.reverseString(str);
+        long start = System.nanoTime();
+        String result = T01_StringReverse.reverseString(str);
+        REVERSE_STRING.record(str.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static String reverseSentence(String str) {
+        if (!Instrumentation.isEnabled()) return T03_ReverseSentence.reverseSentence(str);
+        long start = System.nanoTime();
+        String result = T03_ReverseSentence.reverseSentence(str);
+        REVERSE_SENTENCE.record(str.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static char firstNonRepeatedChar(String str) {
+        if (!Instrumentation.isEnabled()) return T04_FirstNonRepeatedChar.firstNonRepeatedChar(str);
+        long start = System.nanoTime();
+        char result = T04_FirstNonRepeatedChar.firstNonRepeatedChar(str);
+        FIRST_NON_REPEATED_CHAR.record(str.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static boolean isValid(String s) {
+        if (!Instrumentation.isEnabled()) return ValidParenthesis.isValid(s);
+        long start = System.nanoTime();
+        boolean result = ValidParenthesis.isValid(s);
+        IS_VALID.record(s.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static String encode1(String str) {
+        if (!Instrumentation.isEnabled()) return StringFrequency.encode1(str);
+        long start = System.nanoTime();
+        String result = StringFrequency.encode1(str);
+        ENCODE1.record(str.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static String encode2(String str) {
+        if (!Instrumentation.isEnabled()) return StringFrequency.encode2(str);
+        long start = System.nanoTime();
+        String result = StringFrequency.encode2(str);
+        ENCODE2.record(str.length(), System.nanoTime() - start);
+        return result;
+    }
+
+    public static int findMax(int[] nums) {
+        if (!Instrumentation.isEnabled()) return T05_ArrayMaxNum.findMax(nums);
+        long start = System.nanoTime();
+        int result = T05_ArrayMaxNum.findMax(nums);
+        FIND_MAX.record(nums.length, System.nanoTime() - start);
+        return result;
+    }
+}
@@ -0,0 +1,409 @@
+package day04;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import static day04.ColumnOps.*;
+
+/*
+Columnar version of the StreamsDemo number pipelines, for int[] columns with hundreds of millions of values:
+
+    nums.stream().filter(n -> n % 2 == 0).map(n -> n * 2).toList()
+    IntColumnQuery.over(column).filter(even()).map(times(2)).toList()
+
+    someNums.stream().anyMatch(num -> num < 0)
+    IntColumnQuery.over(column).anyMatch(lessThan(0))
+
+The column is processed in morsels of 16K rows (the morsel and its scratch arrays stay in L2):
+ - filter(Condition) compares a whole vector of rows at once (jdk.incubator.vector) and writes the positions
+   of the matching rows into a selection vector; later filters only test the selected rows
+ - map(Transform) is one vector op per vector of rows; when few rows are selected it only touches those
+ - count/sum/min/max/anyMatch/toArray read the whole morsel with vectors, or just the selected rows
+ - parallel(): ForkJoin workers take morsels one by one from a shared counter, so uneven morsels balance out;
+   per-worker results are combined at the end and toArray keeps the row order
+filter(IntPredicate) / map(IntUnaryOperator) take any lambda, but run one row at a time.
+Same results as the IntStream pipeline (int overflow wraps like n * 2 does), sum() is a long.
+
+Needs --add-modules jdk.incubator.vector (set in the pom for compiling, tests and benchmarks).
+ */
+public class IntColumnQuery {
+    static final int MORSEL = 16 * 1024; // sum() relies on MORSEL * 65535 fitting in an int
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int[] column;
+    private final List<Step> steps = new ArrayList<>();
+    private boolean parallel;
+
+    private IntColumnQuery(int[] column) {
+        this.column = column;
+    }
+
+    //the array is not copied
+    public static IntColumnQuery over(int[] column) {
+        return new IntColumnQuery(column);
+    }
+
+    //unboxes the list once
+    public static IntColumnQuery over(List<Integer> list) {
+        return new IntColumnQuery(list.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public IntColumnQuery filter(Condition condition) {
+        int mask = toInt(condition.mask);
+        int value = toInt(condition.value);
+        steps.add(w -> w.filter(condition.cmp, mask, value));
+        return this;
+    }
+
+    public IntColumnQuery filter(IntPredicate predicate) {
+        steps.add(w -> w.filter(predicate));
+        return this;
+    }
+
+    public IntColumnQuery map(Transform transform) {
+        int operand = toInt(transform.operand);
+        steps.add(w -> w.map(transform.op, operand));
+        return this;
+    }
+
+    public IntColumnQuery map(IntUnaryOperator mapper) {
+        steps.add(w -> w.map(mapper));
+        return this;
+    }
+
+    public IntColumnQuery parallel() {
+        parallel = true;
+        return this;
+    }
+
+    private static int toInt(long value) {
+        if (value != (int) value) throw new IllegalArgumentException(value + " is out of int range");
+        return (int) value;
+    }
+
+    //----------------------------------------------- terminal operations
+
+    public long count() {
+        long count = 0;
+        for (Worker w : run((w, morsel) -> w.rows += w.count, () -> false)) {
+            count += w.rows;
+        }
+        return count;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (Worker w : run((w, morsel) -> w.sum += w.sumSelected(), () -> false)) {
+            sum += w.sum;
+        }
+        return sum;
+    }
+
+    public OptionalInt min() {
+        return minOrMax(true);
+    }
+
+    public OptionalInt max() {
+        return minOrMax(false);
+    }
+
+    private OptionalInt minOrMax(boolean min) {
+        boolean any = false;
+        int result = min ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        for (Worker w : run((w, morsel) -> w.minMax(min), () -> false)) {
+            if (w.rows > 0) {
+                any = true;
+                result = min ? Math.min(result, w.extreme) : Math.max(result, w.extreme);
+            }
+        }
+        return any ? OptionalInt.of(result) : OptionalInt.empty();
+    }
+
+    //stops all workers at the first match
+    public boolean anyMatch(Condition condition) {
+        int mask = toInt(condition.mask);
+        int value = toInt(condition.value);
+        AtomicBoolean found = new AtomicBoolean();
+        run((w, morsel) -> {
+            if (w.anyMatch(condition.cmp, mask, value)) found.set(true);
+        }, found::get);
+        return found.get();
+    }
+
+    //row by row, stops all workers at the first match; like anyMatch(Condition) the query is left as it was
+    public boolean anyMatch(IntPredicate predicate) {
+        AtomicBoolean found = new AtomicBoolean();
+        run((w, morsel) -> {
+            w.filter(predicate); // only this morsel's selection, not a step of the query
+            if (w.count > 0) found.set(true);
+        }, found::get);
+        return found.get();
+    }
+
+    public int[] toArray() {
+        int[][] chunks = new int[(column.length + MORSEL - 1) / MORSEL][];
+        run((w, morsel) -> chunks[morsel] = w.selectedValues(), () -> false);
+        int length = 0;
+        for (int[] chunk : chunks) {
+            length += chunk == null ? 0 : chunk.length;
+        }
+        int[] result = new int[length];
+        int at = 0;
+        for (int[] chunk : chunks) {
+            if (chunk != null) {
+                System.arraycopy(chunk, 0, result, at, chunk.length);
+                at += chunk.length;
+            }
+        }
+        return result;
+    }
+
+    //boxed, like Stream.toList()
+    public List<Integer> toList() {
+        return Arrays.stream(toArray()).boxed().toList();
+    }
+
+    private interface Step {
+        void apply(Worker w);
+    }
+
+    private interface MorselResult {
+        void accept(Worker w, int morsel);
+    }
+
+    //stop is checked between morsels
+    private List<Worker> run(MorselResult result, BooleanSupplier stop) {
+        return forEachMorsel(column.length, MORSEL, parallel, Worker::new, (w, morsel, start, length) -> {
+            if (w.process(start, length)) {
+                result.accept(w, morsel);
+            }
+        }, stop);
+    }
+
+    //----------------------------------------------- kernels, one Worker per thread
+
+    private final class Worker {
+        final int[] values = new int[MORSEL];
+        final int[] sel = new int[MORSEL];
+        int[] data;   // the column until the first map, then values
+        int offset;   // where the morsel starts in data
+        int length;   // rows in the morsel
+        int count;    // selected rows
+        boolean dense; // true: all rows selected, sel not used
+
+        long rows;
+        long sum;
+        int extreme;
+
+        //runs the steps, false if no row is left
+        boolean process(int start, int length) {
+            this.data = column;
+            this.offset = start;
+            this.length = length;
+            this.count = length;
+            this.dense = true;
+            for (Step step : steps) {
+                step.apply(this);
+                if (count == 0) return false;
+            }
+            return true;
+        }
+
+        //the operators must be constants in the code, otherwise the Vector API falls back to a loop over lanes
+        private VectorMask<Integer> test(IntVector v, ColumnOps.Cmp cmp, int mask, int value) {
+            IntVector x = mask == -1 ? v : v.and(mask);
+            switch (cmp) {
+                case LT: return x.compare(VectorOperators.LT, value);
+                case LE: return x.compare(VectorOperators.LE, value);
+                case GT: return x.compare(VectorOperators.GT, value);
+                case GE: return x.compare(VectorOperators.GE, value);
+                case EQ: return x.compare(VectorOperators.EQ, value);
+                default: return x.compare(VectorOperators.NE, value);
+            }
+        }
+
+        private IntVector apply(IntVector v, ColumnOps.Op op, int operand) {
+            switch (op) {
+                case ADD: return v.add(operand);
+                case SUB: return v.sub(operand);
+                case MUL: return v.mul(operand);
+                case AND: return v.and(operand);
+                case OR: return v.or(operand);
+                case XOR: return v.lanewise(VectorOperators.XOR, operand);
+                case MIN: return v.min(operand);
+                default: return v.max(operand);
+            }
+        }
+
+        void filter(ColumnOps.Cmp cmp, int mask, int value) {
+            int n = 0;
+            if (dense) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    long bits = test(IntVector.fromArray(SPECIES, data, offset + i), cmp, mask, value).toLong();
+                    while (bits != 0) {
+                        sel[n++] = i + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                    }
+                }
+                for (; i < length; i++) {
+                    if (cmp.test(data[offset + i] & mask, value)) sel[n++] = i;
+                }
+                dense = n == length;
+            } else {
+                for (int k = 0; k < count; k++) {
+                    int row = sel[k];
+                    if (cmp.test(data[offset + row] & mask, value)) sel[n++] = row;
+                }
+            }
+            count = n;
+        }
+
+        void filter(IntPredicate predicate) {
+            int n = 0;
+            for (int k = 0; k < count; k++) {
+                int row = dense ? k : sel[k];
+                if (predicate.test(data[offset + row])) sel[n++] = row;
+            }
+            dense = dense && n == length;
+            count = n;
+        }
+
+        void map(ColumnOps.Op op, int operand) {
+            //a few unused rows are cheaper to compute with vectors than to skip one by one
+            if (dense || count * 4 >= length) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    apply(IntVector.fromArray(SPECIES, data, offset + i), op, operand).intoArray(values, i);
+                }
+                for (; i < length; i++) {
+                    values[i] = op.apply(data[offset + i], operand);
+                }
+            } else {
+                for (int k = 0; k < count; k++) {
+                    int row = sel[k];
+                    values[row] = op.apply(data[offset + row], operand);
+                }
+            }
+            data = values;
+            offset = 0;
+        }
+
+        void map(IntUnaryOperator mapper) {
+            for (int k = 0; k < count; k++) {
+                int row = dense ? k : sel[k];
+                values[row] = mapper.applyAsInt(data[offset + row]);
+            }
+            data = values;
+            offset = 0;
+        }
+
+        /*
+        Dense: adds the low and high 16 bits of each value in separate int lanes, neither can overflow
+        within one morsel, and combines them as long at the end.
+         */
+        long sumSelected() {
+            if (!dense) {
+                long s = 0;
+                for (int k = 0; k < count; k++) {
+                    s += data[offset + sel[k]];
+                }
+                return s;
+            }
+            IntVector low = IntVector.zero(SPECIES);
+            IntVector high = IntVector.zero(SPECIES);
+            int i = 0;
+            for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                IntVector v = IntVector.fromArray(SPECIES, data, offset + i);
+                low = low.add(v.and(0xFFFF));
+                high = high.add(v.lanewise(VectorOperators.ASHR, 16));
+            }
+            long s = low.reduceLanesToLong(VectorOperators.ADD) + (high.reduceLanesToLong(VectorOperators.ADD) << 16);
+            for (; i < length; i++) {
+                s += data[offset + i];
+            }
+            return s;
+        }
+
+        void minMax(boolean min) {
+            int result = rows == 0 ? (min ? Integer.MAX_VALUE : Integer.MIN_VALUE) : extreme;
+            if (dense) {
+                IntVector acc = IntVector.broadcast(SPECIES, result);
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    IntVector v = IntVector.fromArray(SPECIES, data, offset + i);
+                    acc = min ? acc.min(v) : acc.max(v);
+                }
+                result = acc.reduceLanes(min ? VectorOperators.MIN : VectorOperators.MAX);
+                for (; i < length; i++) {
+                    result = min ? Math.min(result, data[offset + i]) : Math.max(result, data[offset + i]);
+                }
+            } else {
+                for (int k = 0; k < count; k++) {
+                    int v = data[offset + sel[k]];
+                    result = min ? Math.min(result, v) : Math.max(result, v);
+                }
+            }
+            extreme = result;
+            rows += count;
+        }
+
+        boolean anyMatch(ColumnOps.Cmp cmp, int mask, int value) {
+            if (dense) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    if (test(IntVector.fromArray(SPECIES, data, offset + i), cmp, mask, value).anyTrue()) return true;
+                }
+                for (; i < length; i++) {
+                    if (cmp.test(data[offset + i] & mask, value)) return true;
+                }
+                return false;
+            }
+            for (int k = 0; k < count; k++) {
+                if (cmp.test(data[offset + sel[k]] & mask, value)) return true;
+            }
+            return false;
+        }
+
+        int[] selectedValues() {
+            if (dense) {
+                return Arrays.copyOfRange(data, offset, offset + length);
+            }
+            int[] result = new int[count];
+            for (int k = 0; k < count; k++) {
+                result[k] = data[offset + sel[k]];
+            }
+            return result;
+        }
+    }
+
+    //the StreamsDemo number pipelines, ported
+    public static void main(String[] args) {
+        List<Integer> nums = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        System.out.println("evens = " + IntColumnQuery.over(nums).filter(even()).toList());
+        System.out.println("odds = " + IntColumnQuery.over(nums).filter(odd()).toList());
+        System.out.println("doubled = " + IntColumnQuery.over(nums).map(times(2)).toList());
+        List<Integer> someNums = Arrays.asList(200, 400, 1, 20, 33, 74, 98, -2, 8);
+        System.out.println("anyNegative = " + IntColumnQuery.over(someNums).anyMatch(lessThan(0)));
+
+        int[] column = new Random(1).ints(100_000_000).toArray();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long streamSum = Arrays.stream(column).filter(n -> n % 2 == 0).map(n -> n * 2).asLongStream().sum();
+            long streamNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long columnSum = IntColumnQuery.over(column).filter(even()).map(times(2)).parallel().sum();
+            long columnNanos = System.nanoTime() - start;
+            System.out.printf("100M rows filter(even).map(*2).sum: IntStream %d ms, column query %d ms, same: %b%n",
+                    streamNanos / 1_000_000, columnNanos / 1_000_000, streamSum == columnSum);
+        }
+    }
+}
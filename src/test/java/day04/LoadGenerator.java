@@ -0,0 +1,111 @@
+package day04;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Load test for StringService on localhost: throughput and p50/p99/p999 latency.
+Each connection keeps 'depth' pipelined requests in flight, every request is a batch of 'batch' inputs.
+
+args: [connections] [depth] [batch] [seconds] [port]   (no port -> starts a StringService in this JVM)
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        StringService service = null;
+        int port;
+        if (args.length > 4) {
+            port = Integer.parseInt(args[4]);
+        } else {
+            service = new StringService(0, connections, Runtime.getRuntime().availableProcessors());
+            port = service.port();
+        }
+        try {
+            Result result = run(port, connections, depth, batch, TimeUnit.SECONDS.toNanos(seconds));
+            System.out.printf("connections=%d depth=%d batch=%d%n", connections, depth, batch);
+            System.out.printf("requests/s=%.0f items/s=%.0f%n",
+                    result.requests * 1e9 / result.nanos, result.requests * batch * 1e9 / result.nanos);
+            System.out.printf("latency us p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    result.latencies.percentile(50) / 1e3, result.latencies.percentile(99) / 1e3,
+                    result.latencies.percentile(99.9) / 1e3, result.latencies.max() / 1e3);
+        } finally {
+            if (service != null) service.close();
+        }
+    }
+
+    static class Result {
+        long requests;
+        long nanos;
+        final LatencyHistogram latencies = new LatencyHistogram();
+    }
+
+    static Result run(int port, int connections, int depth, int batch, long durationNanos) throws Exception {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < batch; i++) {
+            inputs.add("java is fun " + i);
+        }
+        StringProtocol.Op[] ops = StringProtocol.Op.values();
+        List<Thread> threads = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+
+        for (int c = 0; c < connections; c++) {
+            Result local = new Result();
+            results.add(local);
+            Thread thread = new Thread(() -> {
+                long[] sentAt = new long[depth]; // indexed by requestId % depth
+                try (StringServiceClient client = new StringServiceClient("localhost", port)) {
+                    int sent = 0;
+                    for (; sent < depth; sent++) {
+                        sentAt[sent % depth] = System.nanoTime();
+                        client.send(ops[sent % ops.length], inputs);
+                    }
+                    int received = 0;
+                    while (received < sent) {
+                        StringProtocol.Frame response = client.receive();
+                        long now = System.nanoTime();
+                        if (!response.isOk()) {
+                            throw new IOException("Server error " + response.items);
+                        }
+                        local.latencies.record(now - sentAt[response.requestId % depth]);
+                        local.requests++;
+                        received++;
+                        if (now < deadline) {
+                            sentAt[sent % depth] = now;
+                            client.send(ops[sent % ops.length], inputs);
+                            sent++;
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        Result total = new Result();
+        total.nanos = System.nanoTime() - start;
+        for (Result result : results) {
+            total.requests += result.requests;
+            total.latencies.add(result.latencies);
+        }
+        return total;
+    }
+}
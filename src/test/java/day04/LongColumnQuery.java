@@ -0,0 +1,376 @@
+package day04;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+import static day04.ColumnOps.*;
+
+/*
+IntColumnQuery for long[] columns (ids, timestamps, amounts in cents), same API and kernels:
+
+    LongColumnQuery.over(amounts).filter(greaterThan(0)).map(times(2)).parallel().sum()
+
+sum() wraps on overflow like LongStream.sum().
+Needs --add-modules jdk.incubator.vector.
+ */
+public class LongColumnQuery {
+    static final int MORSEL = 16 * 1024;
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private final long[] column;
+    private final List<Step> steps = new ArrayList<>();
+    private boolean parallel;
+
+    private LongColumnQuery(long[] column) {
+        this.column = column;
+    }
+
+    //the array is not copied
+    public static LongColumnQuery over(long[] column) {
+        return new LongColumnQuery(column);
+    }
+
+    //unboxes the list once
+    public static LongColumnQuery over(List<Long> list) {
+        return new LongColumnQuery(list.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public LongColumnQuery filter(Condition condition) {
+        long mask = condition.mask;
+        long value = condition.value;
+        steps.add(w -> w.filter(condition.cmp, mask, value));
+        return this;
+    }
+
+    public LongColumnQuery filter(LongPredicate predicate) {
+        steps.add(w -> w.filter(predicate));
+        return this;
+    }
+
+    public LongColumnQuery map(Transform transform) {
+        long operand = transform.operand;
+        steps.add(w -> w.map(transform.op, operand));
+        return this;
+    }
+
+    public LongColumnQuery map(LongUnaryOperator mapper) {
+        steps.add(w -> w.map(mapper));
+        return this;
+    }
+
+    public LongColumnQuery parallel() {
+        parallel = true;
+        return this;
+    }
+
+    //----------------------------------------------- terminal operations
+
+    public long count() {
+        long count = 0;
+        for (Worker w : run((w, morsel) -> w.rows += w.count, () -> false)) {
+            count += w.rows;
+        }
+        return count;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (Worker w : run((w, morsel) -> w.sum += w.sumSelected(), () -> false)) {
+            sum += w.sum;
+        }
+        return sum;
+    }
+
+    public OptionalLong min() {
+        return minOrMax(true);
+    }
+
+    public OptionalLong max() {
+        return minOrMax(false);
+    }
+
+    private OptionalLong minOrMax(boolean min) {
+        boolean any = false;
+        long result = min ? Long.MAX_VALUE : Long.MIN_VALUE;
+        for (Worker w : run((w, morsel) -> w.minMax(min), () -> false)) {
+            if (w.rows > 0) {
+                any = true;
+                result = min ? Math.min(result, w.extreme) : Math.max(result, w.extreme);
+            }
+        }
+        return any ? OptionalLong.of(result) : OptionalLong.empty();
+    }
+
+    //stops all workers at the first match
+    public boolean anyMatch(Condition condition) {
+        long mask = condition.mask;
+        long value = condition.value;
+        AtomicBoolean found = new AtomicBoolean();
+        run((w, morsel) -> {
+            if (w.anyMatch(condition.cmp, mask, value)) found.set(true);
+        }, found::get);
+        return found.get();
+    }
+
+    //row by row, stops all workers at the first match; like anyMatch(Condition) the query is left as it was
+    public boolean anyMatch(LongPredicate predicate) {
+        AtomicBoolean found = new AtomicBoolean();
+        run((w, morsel) -> {
+            w.filter(predicate); // only this morsel's selection, not a step of the query
+            if (w.count > 0) found.set(true);
+        }, found::get);
+        return found.get();
+    }
+
+    public long[] toArray() {
+        long[][] chunks = new long[(column.length + MORSEL - 1) / MORSEL][];
+        run((w, morsel) -> chunks[morsel] = w.selectedValues(), () -> false);
+        int length = 0;
+        for (long[] chunk : chunks) {
+            length += chunk == null ? 0 : chunk.length;
+        }
+        long[] result = new long[length];
+        int at = 0;
+        for (long[] chunk : chunks) {
+            if (chunk != null) {
+                System.arraycopy(chunk, 0, result, at, chunk.length);
+                at += chunk.length;
+            }
+        }
+        return result;
+    }
+
+    //boxed, like Stream.toList()
+    public List<Long> toList() {
+        return Arrays.stream(toArray()).boxed().toList();
+    }
+
+    private interface Step {
+        void apply(Worker w);
+    }
+
+    private interface MorselResult {
+        void accept(Worker w, int morsel);
+    }
+
+    //stop is checked between morsels
+    private List<Worker> run(MorselResult result, BooleanSupplier stop) {
+        return forEachMorsel(column.length, MORSEL, parallel, Worker::new, (w, morsel, start, length) -> {
+            if (w.process(start, length)) {
+                result.accept(w, morsel);
+            }
+        }, stop);
+    }
+
+    //----------------------------------------------- kernels, one Worker per thread
+
+    private final class Worker {
+        final long[] values = new long[MORSEL];
+        final int[] sel = new int[MORSEL];
+        long[] data;   // the column until the first map, then values
+        int offset;   // where the morsel starts in data
+        int length;   // rows in the morsel
+        int count;    // selected rows
+        boolean dense; // true: all rows selected, sel not used
+
+        long rows;
+        long sum;
+        long extreme;
+
+        //runs the steps, false if no row is left
+        boolean process(int start, int length) {
+            this.data = column;
+            this.offset = start;
+            this.length = length;
+            this.count = length;
+            this.dense = true;
+            for (Step step : steps) {
+                step.apply(this);
+                if (count == 0) return false;
+            }
+            return true;
+        }
+
+        //the operators must be constants in the code, otherwise the Vector API falls back to a loop over lanes
+        private VectorMask<Long> test(LongVector v, ColumnOps.Cmp cmp, long mask, long value) {
+            LongVector x = mask == -1 ? v : v.and(mask);
+            switch (cmp) {
+                case LT: return x.compare(VectorOperators.LT, value);
+                case LE: return x.compare(VectorOperators.LE, value);
+                case GT: return x.compare(VectorOperators.GT, value);
+                case GE: return x.compare(VectorOperators.GE, value);
+                case EQ: return x.compare(VectorOperators.EQ, value);
+                default: return x.compare(VectorOperators.NE, value);
+            }
+        }
+
+        private LongVector apply(LongVector v, ColumnOps.Op op, long operand) {
+            switch (op) {
+                case ADD: return v.add(operand);
+                case SUB: return v.sub(operand);
+                case MUL: return v.mul(operand);
+                case AND: return v.and(operand);
+                case OR: return v.or(operand);
+                case XOR: return v.lanewise(VectorOperators.XOR, operand);
+                case MIN: return v.min(operand);
+                default: return v.max(operand);
+            }
+        }
+
+        void filter(ColumnOps.Cmp cmp, long mask, long value) {
+            int n = 0;
+            if (dense) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    long bits = test(LongVector.fromArray(SPECIES, data, offset + i), cmp, mask, value).toLong();
+                    while (bits != 0) {
+                        sel[n++] = i + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                    }
+                }
+                for (; i < length; i++) {
+                    if (cmp.test(data[offset + i] & mask, value)) sel[n++] = i;
+                }
+                dense = n == length;
+            } else {
+                for (int k = 0; k < count; k++) {
+                    int row = sel[k];
+                    if (cmp.test(data[offset + row] & mask, value)) sel[n++] = row;
+                }
+            }
+            count = n;
+        }
+
+        void filter(LongPredicate predicate) {
+            int n = 0;
+            for (int k = 0; k < count; k++) {
+                int row = dense ? k : sel[k];
+                if (predicate.test(data[offset + row])) sel[n++] = row;
+            }
+            dense = dense && n == length;
+            count = n;
+        }
+
+        void map(ColumnOps.Op op, long operand) {
+            //a few unused rows are cheaper to compute with vectors than to skip one by one
+            if (dense || count * 4 >= length) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    apply(LongVector.fromArray(SPECIES, data, offset + i), op, operand).intoArray(values, i);
+                }
+                for (; i < length; i++) {
+                    values[i] = op.apply(data[offset + i], operand);
+                }
+            } else {
+                for (int k = 0; k < count; k++) {
+                    int row = sel[k];
+                    values[row] = op.apply(data[offset + row], operand);
+                }
+            }
+            data = values;
+            offset = 0;
+        }
+
+        void map(LongUnaryOperator mapper) {
+            for (int k = 0; k < count; k++) {
+                int row = dense ? k : sel[k];
+                values[row] = mapper.applyAsLong(data[offset + row]);
+            }
+            data = values;
+            offset = 0;
+        }
+
+        long sumSelected() {
+            long s = 0;
+            if (!dense) {
+                for (int k = 0; k < count; k++) {
+                    s += data[offset + sel[k]];
+                }
+                return s;
+            }
+            LongVector acc = LongVector.zero(SPECIES);
+            int i = 0;
+            for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                acc = acc.add(LongVector.fromArray(SPECIES, data, offset + i));
+            }
+            s = acc.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                s += data[offset + i];
+            }
+            return s;
+        }
+
+        void minMax(boolean min) {
+            long result = rows == 0 ? (min ? Long.MAX_VALUE : Long.MIN_VALUE) : extreme;
+            if (dense) {
+                LongVector acc = LongVector.broadcast(SPECIES, result);
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    LongVector v = LongVector.fromArray(SPECIES, data, offset + i);
+                    acc = min ? acc.min(v) : acc.max(v);
+                }
+                result = acc.reduceLanes(min ? VectorOperators.MIN : VectorOperators.MAX);
+                for (; i < length; i++) {
+                    result = min ? Math.min(result, data[offset + i]) : Math.max(result, data[offset + i]);
+                }
+            } else {
+                for (int k = 0; k < count; k++) {
+                    long v = data[offset + sel[k]];
+                    result = min ? Math.min(result, v) : Math.max(result, v);
+                }
+            }
+            extreme = result;
+            rows += count;
+        }
+
+        boolean anyMatch(ColumnOps.Cmp cmp, long mask, long value) {
+            if (dense) {
+                int i = 0;
+                for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+                    if (test(LongVector.fromArray(SPECIES, data, offset + i), cmp, mask, value).anyTrue()) return true;
+                }
+                for (; i < length; i++) {
+                    if (cmp.test(data[offset + i] & mask, value)) return true;
+                }
+                return false;
+            }
+            for (int k = 0; k < count; k++) {
+                if (cmp.test(data[offset + sel[k]] & mask, value)) return true;
+            }
+            return false;
+        }
+
+        long[] selectedValues() {
+            if (dense) {
+                return Arrays.copyOfRange(data, offset, offset + length);
+            }
+            long[] result = new long[count];
+            for (int k = 0; k < count; k++) {
+                result[k] = data[offset + sel[k]];
+            }
+            return result;
+        }
+    }
+
+    public static void main(String[] args) {
+        long[] amounts = new Random(1).longs(50_000_000, -1_000_000, 1_000_000).toArray();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long streamSum = Arrays.stream(amounts).filter(n -> n > 0).map(n -> n * 2).sum();
+            long streamNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long columnSum = LongColumnQuery.over(amounts).filter(greaterThan(0)).map(times(2)).parallel().sum();
+            long columnNanos = System.nanoTime() - start;
+            System.out.printf("50M rows filter(>0).map(*2).sum: LongStream %d ms, column query %d ms, same: %b%n",
+                    streamNanos / 1_000_000, columnNanos / 1_000_000, streamSum == columnSum);
+        }
+    }
+}
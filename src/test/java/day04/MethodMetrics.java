@@ -0,0 +1,139 @@
+package day04;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Counters for one method. Every thread records into its own Recorder (no locks, no CAS on the hot path),
+snapshot() adds all recorders together. Snapshots taken while threads are recording
+may miss the most recent few calls, which is fine for monitoring.
+
+Recorders of threads that have ended are folded into one retired Recorder and dropped, so
+thread-per-connection or thread-per-task code doesn't pile up recorders. That sweep runs on snapshot()
+and when the number of registered recorders has doubled since the last sweep.
+ */
+public class MethodMetrics {
+    private static final int MIN_SWEEP = 64;
+
+    private final String name;
+    private final ConcurrentLinkedQueue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger registered = new AtomicInteger();
+    private final Recorder retired = new Recorder(null); // guarded by itself
+    private volatile int sweepAt = MIN_SWEEP;
+    private final ThreadLocal<Recorder> local = ThreadLocal.withInitial(this::register);
+
+    MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void record(long inputSize, long nanos) {
+        Recorder recorder = local.get();
+        recorder.invocations++;
+        recorder.inputSizes.record(inputSize);
+        recorder.latencies.record(nanos);
+    }
+
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot(name);
+        synchronized (retired) {
+            sweep();
+            addTo(snapshot, retired);
+        }
+        for (Recorder recorder : recorders) {
+            addTo(snapshot, recorder);
+        }
+        return snapshot;
+    }
+
+    private static void addTo(Snapshot snapshot, Recorder recorder) {
+        snapshot.invocations += recorder.invocations;
+        snapshot.inputSizes.add(recorder.inputSizes);
+        snapshot.latencies.add(recorder.latencies);
+    }
+
+    //recorders of live (or not yet swept) threads
+    int recorderCount() {
+        return registered.get();
+    }
+
+    private Recorder register() {
+        Recorder recorder = new Recorder(Thread.currentThread());
+        recorders.add(recorder);
+        if (registered.incrementAndGet() >= sweepAt) {
+            synchronized (retired) {
+                sweep();
+            }
+        }
+        return recorder;
+    }
+
+    /*
+    Moves the counts of ended threads into retired. Seeing isAlive() == false guarantees we see
+    everything that thread recorded, so nothing is lost. guarded by retired
+     */
+    private void sweep() {
+        for (Iterator<Recorder> it = recorders.iterator(); it.hasNext(); ) {
+            Recorder recorder = it.next();
+            if (!recorder.owner.isAlive()) {
+                retired.invocations += recorder.invocations;
+                retired.inputSizes.add(recorder.inputSizes);
+                retired.latencies.add(recorder.latencies);
+                it.remove();
+                registered.decrementAndGet();
+            }
+        }
+        sweepAt = Math.max(MIN_SWEEP, 2 * registered.get());
+    }
+
+    private static class Recorder {
+        final Thread owner;
+        long invocations;
+        final LatencyHistogram inputSizes = new LatencyHistogram();
+        final LatencyHistogram latencies = new LatencyHistogram();
+
+        Recorder(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private long invocations;
+        private final LatencyHistogram inputSizes = new LatencyHistogram();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        Snapshot(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long invocations() {
+            return invocations;
+        }
+
+        public LatencyHistogram inputSizes() {
+            return inputSizes;
+        }
+
+        //nanoseconds
+        public LatencyHistogram latencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s count=%d size[p50=%d p99=%d max=%d] latencyNs[p50=%d p99=%d p999=%d max=%d]",
+                    name, invocations,
+                    inputSizes.percentile(50), inputSizes.percentile(99), inputSizes.max(),
+                    latencies.percentile(50), latencies.percentile(99), latencies.percentile(99.9), latencies.max());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package day04;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Publishes Instrumentation snapshots: periodically appended to a file and/or live over JMX
+public class MetricsExporter implements AutoCloseable {
+    static final String OBJECT_NAME = "day04:type=Instrumentation";
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "metrics-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //appends "timestamp snapshot-line" for every method each period
+    public MetricsExporter exportToFile(Path file, Duration period) {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot(file);
+            } catch (RuntimeException e) {
+                //an exception escaping the task would cancel every later export, so log it and try next period
+                System.err.println("Metrics export to " + file + " failed: " + e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public static void writeSnapshot(Path file) {
+        String now = Instant.now().toString();
+        List<String> lines = new ArrayList<>();
+        for (MethodMetrics.Snapshot snapshot : Instrumentation.snapshot()) {
+            lines.add(now + " " + snapshot);
+        }
+        try {
+            Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void registerMBean() throws JMException {
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new InstrumentationMXBean() {
+                @Override
+                public boolean isEnabled() {
+                    return Instrumentation.isEnabled();
+                }
+
+                @Override
+                public void setEnabled(boolean enabled) {
+                    Instrumentation.setEnabled(enabled);
+                }
+
+                @Override
+                public String[] getSnapshot() {
+                    return Instrumentation.snapshot().stream().map(Object::toString).toArray(String[]::new);
+                }
+            }, name);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+}
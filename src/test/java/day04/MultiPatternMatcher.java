@@ -0,0 +1,232 @@
+package day04;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/*
+Checks a string against many contains / startsWith / endsWith rules in one pass,
+instead of calling st.endsWith("A") or getText().contains("Office") once per rule.
+
+    MultiPatternMatcher matcher = MultiPatternMatcher.builder()
+            .endsWith("A").contains("Office").startsWith("New").ignoreCase().build();
+    states.stream().filter(matcher).toList();      // any rule matches
+    matcher.matches("Main Office")                 // which rules match: {1}
+
+How: all patterns go into one Aho-Corasick automaton (a trie + failure links turned into a DFA),
+so each input char is one table lookup no matter how many rules there are.
+ - contains rules: reported in every state whose string ends with the pattern
+ - startsWith rules: only count while we are still on the trie path from the root (nothing skipped yet)
+ - endsWith rules: per-state suffix table, checked once in the state we end in
+Chars are mapped to small class numbers through a 64K table; ignoreCase maps 'a' and 'A'
+to the same class, so there is no toLowerCase copy of the input.
+ */
+public class MultiPatternMatcher implements Predicate<String> {
+    private static final int[] NONE = new int[0];
+
+    private final char[] classOf;   // char -> symbol class, 0 = not in any pattern
+    private final int alphabet;
+    private final int[] delta;      // state * alphabet + class -> next state
+    private final int[] depth;      // length of the string a state stands for
+    private final int[][] containsOut;
+    private final int[][] prefixOut;
+    private final int[][] suffixOut;
+    private final int rules;
+
+    private MultiPatternMatcher(char[] classOf, int alphabet, int[] delta, int[] depth,
+                                int[][] containsOut, int[][] prefixOut, int[][] suffixOut, int rules) {
+        this.classOf = classOf;
+        this.alphabet = alphabet;
+        this.delta = delta;
+        this.depth = depth;
+        this.containsOut = containsOut;
+        this.prefixOut = prefixOut;
+        this.suffixOut = suffixOut;
+        this.rules = rules;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int ruleCount() {
+        return rules;
+    }
+
+    //true if at least one rule matches, stops at the first match
+    @Override
+    public boolean test(String input) {
+        return scan(input, null);
+    }
+
+    //rule numbers (in the order they were added to the builder) of all matching rules
+    public BitSet matches(CharSequence input) {
+        BitSet matched = new BitSet(rules);
+        scan(input, matched);
+        return matched;
+    }
+
+    //matched == null -> return at the first match
+    private boolean scan(CharSequence input, BitSet matched) {
+        int state = 0;
+        boolean onRootPath = true;
+        if (report(containsOut[0], matched) || report(prefixOut[0], matched)) return true;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            state = delta[state * alphabet + classOf[input.charAt(i)]];
+            if (report(containsOut[state], matched)) return true;
+            if (onRootPath) {
+                onRootPath = depth[state] == i + 1;
+                if (onRootPath && report(prefixOut[state], matched)) return true;
+            }
+        }
+        report(suffixOut[state], matched);
+        return matched == null ? suffixOut[state].length > 0 : !matched.isEmpty();
+    }
+
+    private static boolean report(int[] out, BitSet matched) {
+        if (out.length == 0) return false;
+        if (matched == null) return true;
+        for (int rule : out) {
+            matched.set(rule);
+        }
+        return false;
+    }
+
+    public static class Builder {
+        private enum Kind {CONTAINS, PREFIX, SUFFIX}
+
+        private final List<String> patterns = new ArrayList<>();
+        private final List<Kind> kinds = new ArrayList<>();
+        private boolean ignoreCase;
+
+        public Builder contains(String pattern) {
+            return add(pattern, Kind.CONTAINS);
+        }
+
+        public Builder startsWith(String pattern) {
+            return add(pattern, Kind.PREFIX);
+        }
+
+        public Builder endsWith(String pattern) {
+            return add(pattern, Kind.SUFFIX);
+        }
+
+        public Builder ignoreCase() {
+            ignoreCase = true;
+            return this;
+        }
+
+        private Builder add(String pattern, Kind kind) {
+            patterns.add(Objects.requireNonNull(pattern));
+            kinds.add(kind);
+            return this;
+        }
+
+        public MultiPatternMatcher build() {
+            //1) char classes: one per distinct (folded) pattern char
+            char[] classOf = new char[Character.MAX_VALUE + 1];
+            int alphabet = 1;
+            for (String pattern : patterns) {
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = fold(pattern.charAt(i));
+                    if (classOf[c] == 0) {
+                        if (alphabet == Character.MAX_VALUE) throw new IllegalStateException("Too many distinct chars");
+                        classOf[c] = (char) alphabet++;
+                    }
+                }
+            }
+            if (ignoreCase) {
+                char[] folded = classOf.clone();
+                for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                    classOf[c] = folded[fold((char) c)];
+                }
+            }
+
+            //2) trie
+            List<int[]> trie = new ArrayList<>();
+            List<Integer> depths = new ArrayList<>();
+            List<List<Integer>> own = new ArrayList<>();   // rule ids ending in each state
+            trie.add(newRow(alphabet));
+            depths.add(0);
+            own.add(new ArrayList<>());
+            for (int rule = 0; rule < patterns.size(); rule++) {
+                String pattern = patterns.get(rule);
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    int symbol = classOf[fold(pattern.charAt(i))];
+                    if (trie.get(state)[symbol] == -1) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newRow(alphabet));
+                        depths.add(i + 1);
+                        own.add(new ArrayList<>());
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                own.get(state).add(rule);
+            }
+
+            //3) failure links in BFS order, missing edges become DFA transitions
+            int states = trie.size();
+            int[] delta = new int[states * alphabet];
+            int[] fail = new int[states];
+            int[] depth = new int[states];
+            int[][] containsOut = new int[states][];
+            int[][] prefixOut = new int[states][];
+            int[][] suffixOut = new int[states][];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                depth[state] = depths.get(state);
+                int[] row = trie.get(state);
+                for (int symbol = 0; symbol < alphabet; symbol++) {
+                    int next = row[symbol];
+                    if (next != -1) {
+                        fail[next] = state == 0 ? 0 : delta[fail[state] * alphabet + symbol];
+                        queue.add(next);
+                    } else {
+                        next = state == 0 ? 0 : delta[fail[state] * alphabet + symbol];
+                    }
+                    delta[state * alphabet + symbol] = next;
+                }
+                //outputs: own rules + everything the failure state (a shorter suffix) outputs
+                containsOut[state] = merge(select(own.get(state), Kind.CONTAINS), state == 0 ? NONE : containsOut[fail[state]]);
+                suffixOut[state] = merge(select(own.get(state), Kind.SUFFIX), state == 0 ? NONE : suffixOut[fail[state]]);
+                prefixOut[state] = select(own.get(state), Kind.PREFIX);
+            }
+            return new MultiPatternMatcher(classOf, alphabet, delta, depth, containsOut, prefixOut, suffixOut, patterns.size());
+        }
+
+        private char fold(char c) {
+            return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+        }
+
+        private int[] select(List<Integer> rules, Kind kind) {
+            return rules.stream().filter(rule -> kinds.get(rule) == kind).mapToInt(Integer::intValue).toArray();
+        }
+
+        private static int[] merge(int[] a, int[] b) {
+            if (b.length == 0) return a.length == 0 ? NONE : a;
+            if (a.length == 0) return b;
+            int[] merged = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, merged, a.length, b.length);
+            return merged;
+        }
+
+        private static int[] newRow(int alphabet) {
+            int[] row = new int[alphabet];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+
+    public static void main(String[] args) {
+        List<String> states = List.of("VA", "MD", "CA", "NY", "FL", "IL");
+        MultiPatternMatcher endsWithA = MultiPatternMatcher.builder().endsWith("A").build();
+        System.out.println(states.stream().filter(endsWithA).toList()); // [VA, CA]
+
+        MultiPatternMatcher rules = MultiPatternMatcher.builder()
+                .contains("name").contains("office").startsWith("first").ignoreCase().build();
+        System.out.println(rules.matches("FirstName"));   // {0, 2}
+        System.out.println(rules.matches("Main Office")); // {1}
+    }
+}
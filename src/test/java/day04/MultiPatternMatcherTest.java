@@ -0,0 +1,82 @@
+package day04;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+public class MultiPatternMatcherTest {
+
+    //rule i: kind i % 3 (contains, startsWith, endsWith)
+    private static final List<String> PATTERNS = List.of(
+            "ab", "a", "b", "abc", "ca", "bca", "", "Office", "cab", "aa", "ba", "é", "Éa");
+
+    private static MultiPatternMatcher build(boolean ignoreCase) {
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            switch (i % 3) {
+                case 0 -> builder.contains(PATTERNS.get(i));
+                case 1 -> builder.startsWith(PATTERNS.get(i));
+                default -> builder.endsWith(PATTERNS.get(i));
+            }
+        }
+        if (ignoreCase) builder.ignoreCase();
+        return builder.build();
+    }
+
+    //one rule at a time, like the stream filters do today
+    private static BitSet naive(String input, boolean ignoreCase) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            String p = PATTERNS.get(i);
+            boolean match = false;
+            switch (i % 3) {
+                case 0 -> {
+                    for (int from = 0; from + p.length() <= input.length() && !match; from++) {
+                        match = input.regionMatches(ignoreCase, from, p, 0, p.length());
+                    }
+                }
+                case 1 -> match = input.regionMatches(ignoreCase, 0, p, 0, p.length());
+                default -> match = input.regionMatches(ignoreCase, input.length() - p.length(), p, 0, p.length());
+            }
+            if (match) expected.set(i);
+        }
+        return expected;
+    }
+
+    @Test
+    public void sameResultsAsContainsStartsWithEndsWith() {
+        Random random = new Random(11);
+        String alphabet = "abcABCéÉ xO";
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            MultiPatternMatcher matcher = build(ignoreCase);
+            for (int n = 0; n < 5000; n++) {
+                StringBuilder input = new StringBuilder();
+                for (int len = random.nextInt(12); len > 0; len--) {
+                    input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                String text = random.nextInt(20) == 0 ? input + "office" : input.toString();
+                BitSet expected = naive(text, ignoreCase);
+                Assertions.assertEquals(expected, matcher.matches(text), text + " ignoreCase=" + ignoreCase);
+                Assertions.assertEquals(!expected.isEmpty(), matcher.test(text), text);
+            }
+        }
+    }
+
+    @Test
+    public void streamsDemoFilters() {
+        List<String> states = List.of("VA", "MD", "CA", "NY", "FL", "IL");
+        Assertions.assertEquals(List.of("VA", "CA"),
+                states.stream().filter(MultiPatternMatcher.builder().endsWith("A").build()).toList());
+
+        MultiPatternMatcher matcher = MultiPatternMatcher.builder()
+                .contains("name").contains("office").startsWith("first").ignoreCase().build();
+        Assertions.assertEquals(3, matcher.ruleCount());
+        Assertions.assertEquals("{0, 2}", matcher.matches("FirstName").toString());
+        Assertions.assertEquals("{1}", matcher.matches("Main Office").toString());
+        Assertions.assertFalse(matcher.test("department"));
+        Assertions.assertFalse(MultiPatternMatcher.builder().build().test("anything"));
+    }
+}
@@ -0,0 +1,69 @@
+package day04;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Time-to-first-result of StartupProbe (reverseString + isValid) in a fresh JVM, measured from
+process start until its result line arrives. Compares the default JVM against the AppCDS archive
+that "mvn -Pstartup package" writes to target/app-cds.jsa (created here by a training run if missing).
+CDS only archives classes from jars, so the probe runs from the test-jar built by the same profile.
+
+args: [runs] [test-jar] [archive path]
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        String classPath = args.length > 1 ? args[1] : "target/java-immersive-interview-1.0-SNAPSHOT-tests.jar";
+        Path archive = Path.of(args.length > 2 ? args[2] : "target/app-cds.jsa");
+        if (!Files.isRegularFile(Path.of(classPath))) {
+            throw new IllegalArgumentException(classPath + " not found, run mvn -Pstartup package first");
+        }
+
+        if (!Files.exists(archive)) {
+            System.out.println("training run -> " + archive);
+            firstResultNanos(List.of("-XX:ArchiveClassesAtExit=" + archive), classPath);
+        }
+
+        List<List<String>> configs = List.of(
+                List.of(),
+                List.of("-XX:SharedArchiveFile=" + archive),
+                List.of("-XX:SharedArchiveFile=" + archive, "-XX:TieredStopAtLevel=1"));
+        for (List<String> flags : configs) {
+            firstResultNanos(flags, classPath); // warm the OS file cache
+            long[] times = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                times[i] = firstResultNanos(flags, classPath);
+            }
+            Arrays.sort(times);
+            System.out.printf("%-70s median=%.1f ms min=%.1f ms%n", flags.isEmpty() ? "default" : String.join(" ", flags),
+                    times[runs / 2] / 1e6, times[0] / 1e6);
+        }
+    }
+
+    static long firstResultNanos(List<String> flags, String classPath) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(flags);
+        command.addAll(List.of("-cp", classPath, StartupProbe.class.getName()));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String line;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            line = out.readLine();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (process.waitFor() != 0 || !"avaj true".equals(line)) {
+            throw new IllegalStateException("Probe failed: " + line + " " + String.join(" ", command));
+        }
+        return elapsed;
+    }
+}
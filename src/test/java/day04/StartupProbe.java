@@ -0,0 +1,17 @@
+package day04;
+
+import day01.T01_StringReverse;
+import day03.ValidParenthesis;
+
+/*
+Smallest CLI-style run: compute the first results and exit. Used by StartupBenchmark (time until
+the first line shows up) and as the training run that records the AppCDS archive (mvn -Pstartup package).
+Needs only target/test-classes on the classpath, Selenium and JUnit are never loaded.
+ */
+public class StartupProbe {
+    public static void main(String[] args) {
+        String reversed = T01_StringReverse.reverseString("java");
+        boolean valid = ValidParenthesis.isValid("[]{}");
+        System.out.println(reversed + " " + valid);
+    }
+}
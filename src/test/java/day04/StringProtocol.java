@@ -0,0 +1,110 @@
+package day04;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Length-prefixed binary protocol of StringService (all ints big-endian):
+
+request  = frameLength int, requestId int, op byte, count int, count x (length int, UTF-8 bytes)
+response = frameLength int, requestId int, status byte, count int, count x (length int, UTF-8 bytes)
+
+frameLength counts the bytes after itself. One request carries a batch of inputs for the same op,
+the response has one result per input in the same order (status ERROR: one item with the message).
+Clients may pipeline: send many requests without waiting, responses come back in request order.
+ */
+public class StringProtocol {
+    public static final int MIN_FRAME = 4 + 1 + 4;
+    public static final int MAX_FRAME = 16 << 20;
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    public enum Op {
+        REVERSE_STRING(1),
+        REVERSE_SENTENCE(2),
+        FIRST_NON_REPEATED_CHAR(3),
+        ENCODE2(4),
+        IS_VALID(5);
+
+        final byte code;
+
+        Op(int code) {
+            this.code = (byte) code;
+        }
+
+        public String apply(String input) {
+            return switch (this) {
+                case REVERSE_STRING -> InstrumentedUtils.reverseString(input);
+                case REVERSE_SENTENCE -> InstrumentedUtils.reverseSentence(input);
+                case FIRST_NON_REPEATED_CHAR -> String.valueOf(InstrumentedUtils.firstNonRepeatedChar(input));
+                case ENCODE2 -> InstrumentedUtils.encode2(input);
+                case IS_VALID -> String.valueOf(InstrumentedUtils.isValid(input));
+            };
+        }
+
+        static Op of(byte code) {
+            for (Op op : values()) {
+                if (op.code == code) return op;
+            }
+            throw new IllegalArgumentException("Unknown op " + code);
+        }
+    }
+
+    //a decoded frame, header is the op code for requests and the status for responses
+    public static class Frame {
+        public final int requestId;
+        public final byte header;
+        public final List<String> items;
+
+        Frame(int requestId, byte header, List<String> items) {
+            this.requestId = requestId;
+            this.header = header;
+            this.items = items;
+        }
+
+        public boolean isOk() {
+            return header == OK;
+        }
+    }
+
+    //encodes a whole frame, including the length prefix
+    static ByteBuffer encode(int requestId, byte header, List<String> items) {
+        byte[][] bytes = new byte[items.size()][];
+        int length = MIN_FRAME;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = items.get(i).getBytes(StandardCharsets.UTF_8);
+            length += 4 + bytes[i].length;
+        }
+        if (length > MAX_FRAME) {
+            throw new IllegalArgumentException("Frame too large: " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length).putInt(requestId).put(header).putInt(bytes.length);
+        for (byte[] item : bytes) {
+            buffer.putInt(item.length).put(item);
+        }
+        return buffer.flip();
+    }
+
+    //decodes the frame body, i.e. everything after the length prefix
+    static Frame decode(ByteBuffer body) {
+        int requestId = body.getInt();
+        byte header = body.get();
+        int count = body.getInt();
+        if (count < 0 || count > body.remaining() / 4) {
+            throw new IllegalArgumentException("Bad item count " + count);
+        }
+        List<String> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = body.getInt();
+            if (length < 0 || length > body.remaining()) {
+                throw new IllegalArgumentException("Bad item length " + length);
+            }
+            items.add(new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8));
+            body.position(body.position() + length);
+        }
+        return new Frame(requestId, header, items);
+    }
+}
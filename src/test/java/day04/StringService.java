@@ -0,0 +1,194 @@
+package day04;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/*
+Serves the day01/day03/day04 string utilities over a local socket (see StringProtocol).
+
+One thread per connection doing plain blocking NIO reads/writes. The project builds for Java 17,
+so connections run on a cached platform-thread pool; on Java 21 pass
+Executors.newVirtualThreadPerTaskExecutor() instead and nothing else changes.
+
+Limits / backpressure:
+ - maxConnections: the acceptor stops accepting while that many connections are open
+ - maxConcurrentRequests: requests wait for a permit before running, caps CPU work across connections
+ - a connection is only read again after its previous requests are answered, so a client that
+   pipelines faster than we answer is slowed down by TCP flow control, never by unbounded queues
+ */
+public class StringService implements AutoCloseable {
+    private final ServerSocketChannel server;
+    private final ExecutorService connections;
+    private final Semaphore connectionSlots;
+    private final Semaphore requestPermits;
+    private final Set<SocketChannel> open = new HashSet<>(); // guarded by itself, together with closed
+    private boolean closed;
+    private final Thread acceptor;
+
+    public StringService(int port, int maxConnections, int maxConcurrentRequests) throws IOException {
+        this(port, maxConnections, maxConcurrentRequests, Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "string-service-connection");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public StringService(int port, int maxConnections, int maxConcurrentRequests, ExecutorService connections)
+            throws IOException {
+        this.connections = connections;
+        this.connectionSlots = new Semaphore(maxConnections);
+        this.requestPermits = new Semaphore(maxConcurrentRequests);
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", port));
+        this.acceptor = new Thread(this::acceptLoop, "string-service-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    //the bound port, useful when started with port 0
+    public int port() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                connectionSlots.acquire();
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (IOException e) {
+                    connectionSlots.release();
+                    throw e;
+                }
+                synchronized (open) {
+                    if (closed) { // accepted while close() was running
+                        channel.close();
+                        connectionSlots.release();
+                        return;
+                    }
+                    channel.socket().setTcpNoDelay(true);
+                    open.add(channel);
+                    try {
+                        connections.execute(() -> serve(channel));
+                    } catch (RejectedExecutionException e) {
+                        //pool shut down or saturated: drop this connection, keep the acceptor alive
+                        open.remove(channel);
+                        channel.close();
+                        connectionSlots.release();
+                        if (connections.isShutdown()) {
+                            return;
+                        }
+                        System.err.println("StringService rejected a connection: " + e);
+                    }
+                }
+            }
+        } catch (ClosedChannelException | InterruptedException e) {
+            // close() was called
+        } catch (IOException e) {
+            System.err.println("StringService stopped accepting: " + e);
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        List<ByteBuffer> responses = new ArrayList<>();
+        try (channel) {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                //answer every complete frame we have, pipelined requests often arrive together
+                while (in.remaining() >= 4) {
+                    int length = in.getInt(in.position());
+                    if (length < StringProtocol.MIN_FRAME || length > StringProtocol.MAX_FRAME) {
+                        return; // broken client, drop the connection
+                    }
+                    if (in.remaining() < 4 + length) {
+                        break;
+                    }
+                    ByteBuffer body = in.slice(in.position() + 4, length);
+                    in.position(in.position() + 4 + length);
+                    responses.add(handle(body));
+                }
+                if (!responses.isEmpty()) {
+                    //one gathering write for the whole pipeline, then finish any partial writes
+                    channel.write(responses.toArray(new ByteBuffer[0]));
+                    for (ByteBuffer response : responses) {
+                        while (response.hasRemaining()) {
+                            channel.write(response);
+                        }
+                    }
+                    responses.clear();
+                }
+                in = prepareForRead(in);
+            }
+        } catch (IOException e) {
+            // client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (open) {
+                open.remove(channel);
+            }
+            connectionSlots.release();
+        }
+    }
+
+    //compacts the buffer, or grows it when the next frame does not fit
+    private static ByteBuffer prepareForRead(ByteBuffer in) {
+        if (in.remaining() >= 4 && 4 + in.getInt(in.position()) > in.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(4 + in.getInt(in.position()));
+            return bigger.put(in);
+        }
+        return in.compact();
+    }
+
+    private ByteBuffer handle(ByteBuffer body) throws InterruptedException {
+        int requestId = body.getInt(0);
+        requestPermits.acquire();
+        try {
+            StringProtocol.Frame request = StringProtocol.decode(body);
+            StringProtocol.Op op = StringProtocol.Op.of(request.header);
+            List<String> results = new ArrayList<>(request.items.size());
+            for (String item : request.items) {
+                results.add(op.apply(item));
+            }
+            return StringProtocol.encode(requestId, StringProtocol.OK, results);
+        } catch (RuntimeException e) {
+            return StringProtocol.encode(requestId, StringProtocol.ERROR, List.of(String.valueOf(e)));
+        } finally {
+            requestPermits.release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        acceptor.interrupt();
+        synchronized (open) {
+            closed = true;
+            for (SocketChannel channel : open) {
+                channel.close();
+            }
+        }
+        connections.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        try (StringService service = new StringService(port, 10_000, Runtime.getRuntime().availableProcessors())) {
+            System.out.println("StringService listening on localhost:" + service.port());
+            Thread.currentThread().join();
+        }
+    }
+}
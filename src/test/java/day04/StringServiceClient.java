@@ -0,0 +1,79 @@
+package day04;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/*
+Blocking client for StringService. send() and receive() can be used separately to pipeline:
+send 10 requests, then receive 10 responses (same order). Not thread-safe, except that one thread
+may send while another receives; do that for long pipelines, the server stops reading while it can't write.
+ */
+public class StringServiceClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024).flip();
+    private int nextRequestId;
+
+    public StringServiceClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    //returns the request id the response will carry
+    public int send(StringProtocol.Op op, List<String> inputs) throws IOException {
+        int requestId = nextRequestId++;
+        ByteBuffer frame = StringProtocol.encode(requestId, op.code, inputs);
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+        return requestId;
+    }
+
+    public StringProtocol.Frame receive() throws IOException {
+        fill(4);
+        int length = in.getInt();
+        if (length < StringProtocol.MIN_FRAME || length > StringProtocol.MAX_FRAME) {
+            throw new IOException("Bad frame length " + length);
+        }
+        fill(length);
+        ByteBuffer body = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        return StringProtocol.decode(body);
+    }
+
+    //one round trip, throws if the server answered with an error
+    public List<String> call(StringProtocol.Op op, List<String> inputs) throws IOException {
+        int requestId = send(op, inputs);
+        StringProtocol.Frame response = receive();
+        if (response.requestId != requestId) {
+            throw new IOException("Expected response " + requestId + " but got " + response.requestId);
+        }
+        if (!response.isOk()) {
+            throw new IOException("Server error: " + response.items);
+        }
+        return response.items;
+    }
+
+    //makes sure at least n bytes are readable in 'in'
+    private void fill(int n) throws IOException {
+        if (in.remaining() >= n) return;
+        if (in.capacity() < n) {
+            in = ByteBuffer.allocate(n).put(in).flip();
+        }
+        in.compact();
+        while (in.position() < n) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+        in.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,122 @@
+package day04;
+
+import day01.T01_StringReverse;
+import day01.T03_ReverseSentence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class StringServiceTest {
+    StringService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        service = new StringService(0, 16, 4);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        service.close();
+    }
+
+    @Test
+    public void batchedCallsMatchUtilities() throws IOException {
+        try (StringServiceClient client = new StringServiceClient("localhost", service.port())) {
+            Assertions.assertEquals(List.of("avaj", "cba"),
+                    client.call(StringProtocol.Op.REVERSE_STRING, List.of("java", "abc")));
+            Assertions.assertEquals(List.of("fun is java"),
+                    client.call(StringProtocol.Op.REVERSE_SENTENCE, List.of("java is fun")));
+            Assertions.assertEquals(List.of("b"),
+                    client.call(StringProtocol.Op.FIRST_NON_REPEATED_CHAR, List.of("aabccddu")));
+            Assertions.assertEquals(List.of("a3b2c1a2d2b3"),
+                    client.call(StringProtocol.Op.ENCODE2, List.of("aaabbcaaddbbb")));
+            Assertions.assertEquals(List.of("true", "false"),
+                    client.call(StringProtocol.Op.IS_VALID, List.of("[]{}", "[]{}(")));
+            Assertions.assertEquals(List.of(), client.call(StringProtocol.Op.IS_VALID, List.of()));
+        }
+    }
+
+    @Test
+    public void pipelinedResponsesComeBackInOrder() throws Exception {
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try (StringServiceClient client = new StringServiceClient("localhost", service.port())) {
+            //read on another thread while sending: the server stops reading while its writes are blocked,
+            //so sending all 200 requests (~1MB) first only works if the socket buffers happen to be big enough
+            Future<List<StringProtocol.Frame>> responses = reader.submit(() -> {
+                List<StringProtocol.Frame> frames = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    frames.add(client.receive());
+                }
+                return frames;
+            });
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                inputs.add("word" + i + " é " + "x".repeat(i * 50)); // later frames span several reads
+                client.send(i % 2 == 0 ? StringProtocol.Op.REVERSE_STRING : StringProtocol.Op.REVERSE_SENTENCE,
+                        List.of(inputs.get(i)));
+            }
+            List<StringProtocol.Frame> frames = responses.get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < 200; i++) {
+                StringProtocol.Frame response = frames.get(i);
+                Assertions.assertEquals(i, response.requestId);
+                String expected = i % 2 == 0 ? T01_StringReverse.reverseString(inputs.get(i))
+                        : T03_ReverseSentence.reverseSentence(inputs.get(i));
+                Assertions.assertEquals(List.of(expected), response.items);
+            }
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void errorsAreReportedPerRequest() throws IOException {
+        try (StringServiceClient client = new StringServiceClient("localhost", service.port())) {
+            client.send(StringProtocol.Op.ENCODE2, List.of("")); // encode2 fails on empty input
+            StringProtocol.Frame response = client.receive();
+            Assertions.assertFalse(response.isOk());
+            //the connection is still usable
+            Assertions.assertEquals(List.of("a2"), client.call(StringProtocol.Op.ENCODE2, List.of("aa")));
+        }
+    }
+
+    @Test
+    public void loadGeneratorReportsLatencies() throws Exception {
+        LoadGenerator.Result result = LoadGenerator.run(service.port(), 8, 4, 4, TimeUnit.MILLISECONDS.toNanos(300));
+        Assertions.assertTrue(result.requests > 0);
+        Assertions.assertEquals(result.requests, result.latencies.count());
+        Assertions.assertTrue(result.latencies.percentile(99.9) >= result.latencies.percentile(50));
+    }
+
+    @Test
+    public void rejectedConnectionIsDroppedAndAcceptingGoesOn() throws Exception {
+        //one connection thread and no queue: a second concurrent connection is rejected by the pool
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try (StringService small = new StringService(0, 16, 4, pool)) {
+            try (StringServiceClient first = new StringServiceClient("localhost", small.port())) {
+                Assertions.assertEquals(List.of("cba"), first.call(StringProtocol.Op.REVERSE_STRING, List.of("abc")));
+                try (StringServiceClient second = new StringServiceClient("localhost", small.port())) {
+                    Assertions.assertThrows(IOException.class,
+                            () -> second.call(StringProtocol.Op.REVERSE_STRING, List.of("abc")));
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.getActiveCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            try (StringServiceClient third = new StringServiceClient("localhost", small.port())) {
+                Assertions.assertEquals(List.of("fed"), third.call(StringProtocol.Op.REVERSE_STRING, List.of("def")));
+            }
+        }
+    }
+}
@@ -0,0 +1,657 @@
+package day04;
+
+import day01.T03_ReverseSentence;
+import day01.T04_FirstNonRepeatedChar;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+Chains the string utilities lazily, one chunk at a time, instead of
+    firstNonRepeatedChar(encode2(reverseSentence(text)))
+where every step builds a full String (and encode2's += is quadratic).
+
+    char c = TextPipeline.from(file).reverseWords().encode2().firstNonRepeatedChar();
+
+Nothing runs until the terminal call (writeTo, collect, firstNonRepeatedChar), then the input is read
+in blocks of blockSize chars and pushed through the stages:
+ - reverseWords / reverseChars / map work line by line (lines end at '\n'), same result as
+   reverseSentence / reverseString on each line. Consecutive line stages are fused: each line goes
+   through all of them while it is in cache, maps are composed into one, and with parallel() the
+   lines of a block are split into pieces that run on a ForkJoinPool (output stays in order).
+ - encode2 runs over the whole stream like StringFrequency.encode2(text), the open run is carried
+   from one chunk to the next (empty input gives "" instead of an exception)
+ - firstNonRepeatedChar is a fold over two 64K tables, it never keeps the text
+Buffers come from a pool and go back after the next stage has consumed them, so memory is
+a few blocks per stage no matter how big the input is. Stages that reverse also hold the current line,
+at most maxLineLength chars (16M by default, a longer line fails with an IOException); maps that are
+not next to a reverse don't care about lines and stream the chunks straight through.
+
+Single use, like a Stream.
+ */
+public class TextPipeline {
+    static final int BLOCK_SIZE = 1 << 20;
+    static final int MAX_LINE_LENGTH = 1 << 24;
+    private static final int MIN_PIECE = 4096; // smaller pieces aren't worth a fork/join task
+
+    public interface CharMapper {
+        char apply(char c);
+    }
+
+    private final Reader source;
+    private final List<Object> stages = new ArrayList<>(); // LineOp or ENCODE2
+    private static final Object ENCODE2 = new Object();
+    private int blockSize = BLOCK_SIZE;
+    private int maxLineLength = MAX_LINE_LENGTH;
+    private ForkJoinPool pool;
+    private CharBufferPool buffers;
+
+    private TextPipeline(Reader source) {
+        this.source = source;
+    }
+
+    public static TextPipeline from(CharSequence text) {
+        return new TextPipeline(new StringReader(text.toString()));
+    }
+
+    public static TextPipeline from(Reader reader) {
+        return new TextPipeline(reader);
+    }
+
+    //UTF-8
+    public static TextPipeline from(Path file) throws IOException {
+        return new TextPipeline(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    //------------------------------------------------- stages
+
+    //T03_ReverseSentence.reverseSentence on every line
+    public TextPipeline reverseWords() {
+        stages.add(new ReverseWords());
+        return this;
+    }
+
+    //T01_StringReverse.reverseString on every line
+    public TextPipeline reverseChars() {
+        stages.add(new ReverseChars());
+        return this;
+    }
+
+    public TextPipeline map(CharMapper mapper) {
+        stages.add(new MapChars(mapper));
+        return this;
+    }
+
+    //StringFrequency.encode2 over the whole text
+    public TextPipeline encode2() {
+        stages.add(ENCODE2);
+        return this;
+    }
+
+    public TextPipeline parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    public TextPipeline parallel(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    public TextPipeline blockSize(int blockSize) {
+        if (blockSize < 2) throw new IllegalArgumentException("blockSize must be at least 2");
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    //longest line reverseWords / reverseChars will buffer
+    public TextPipeline maxLineLength(int maxLineLength) {
+        if (maxLineLength < 1) throw new IllegalArgumentException("maxLineLength must be positive");
+        this.maxLineLength = maxLineLength;
+        return this;
+    }
+
+    //------------------------------------------------- terminal operations
+
+    public void writeTo(Writer writer) throws IOException {
+        run(new Sink() {
+            @Override
+            public void accept(CharBuffer chunk) throws IOException {
+                writer.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        });
+    }
+
+    //the whole output as a String, for small inputs
+    public String collect() throws IOException {
+        StringBuilder result = new StringBuilder();
+        run(new Sink() {
+            @Override
+            public void accept(CharBuffer chunk) {
+                result.append(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            }
+
+            @Override
+            public void finish() {
+            }
+        });
+        return result.toString();
+    }
+
+    //T04_FirstNonRepeatedChar over the whole output, '\0' if there is none
+    public char firstNonRepeatedChar() throws IOException {
+        FirstNonRepeated fold = new FirstNonRepeated();
+        run(fold);
+        return fold.result();
+    }
+
+    private void run(Sink terminal) throws IOException {
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        buffers = new CharBufferPool(blockSize, 4 * (parallelism + stages.size()));
+        Sink head = compile(terminal);
+        CharBuffer block = buffers.acquire(blockSize);
+        try (Reader reader = source) {
+            boolean end = false;
+            while (!end) {
+                block.clear();
+                while (block.hasRemaining()) {
+                    if (reader.read(block) < 0) {
+                        end = true;
+                        break;
+                    }
+                }
+                block.flip();
+                if (block.hasRemaining()) {
+                    head.accept(block);
+                }
+            }
+            head.finish();
+        } finally {
+            buffers.release(block);
+        }
+    }
+
+    //builds the sinks back to front, consecutive line stages become one LineStages sink (or MapStage for maps only)
+    private Sink compile(Sink terminal) {
+        Sink next = terminal;
+        int end = stages.size();
+        while (end > 0) {
+            if (stages.get(end - 1) == ENCODE2) {
+                next = new Encode2(next);
+                end--;
+                continue;
+            }
+            int start = end;
+            while (start > 0 && stages.get(start - 1) != ENCODE2) {
+                start--;
+            }
+            List<LineOp> ops = new ArrayList<>();
+            for (Object stage : stages.subList(start, end)) {
+                LineOp op = (LineOp) stage;
+                int last = ops.size() - 1;
+                if (op instanceof MapChars && last >= 0 && ops.get(last) instanceof MapChars) {
+                    CharMapper first = ((MapChars) ops.get(last)).mapper;
+                    CharMapper second = ((MapChars) op).mapper;
+                    ops.set(last, new MapChars(c -> second.apply(first.apply(c))));
+                } else {
+                    ops.add(op);
+                }
+            }
+            if (ops.size() == 1 && ops.get(0) instanceof MapChars) {
+                next = new MapStage(((MapChars) ops.get(0)).mapper, next);
+            } else {
+                next = new LineStages(ops.toArray(new LineOp[0]), next);
+            }
+            end = start;
+        }
+        return next;
+    }
+
+    //------------------------------------------------- stage implementations
+
+    //receives chunks between position and limit, may change the chars in place but must not keep them after returning
+    private interface Sink {
+        void accept(CharBuffer chunk) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /*
+    Transforms one line (between position and limit, no '\n') into at most as many chars,
+    in place or into scratch (cleared, big enough). Returns the buffer holding the result.
+     */
+    private interface LineOp {
+        CharBuffer apply(CharBuffer line, CharBuffer scratch);
+    }
+
+    private static final class MapChars implements LineOp {
+        final CharMapper mapper;
+
+        MapChars(CharMapper mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CharBuffer apply(CharBuffer line, CharBuffer scratch) {
+            char[] a = line.array();
+            for (int i = line.arrayOffset() + line.position(), end = line.arrayOffset() + line.limit(); i < end; i++) {
+                a[i] = mapper.apply(a[i]);
+            }
+            return line;
+        }
+    }
+
+    //in place, surrogate pairs stay in order like StringBuilder.reverse
+    private static final class ReverseChars implements LineOp {
+        @Override
+        public CharBuffer apply(CharBuffer line, CharBuffer scratch) {
+            char[] a = line.array();
+            int from = line.arrayOffset() + line.position();
+            int to = line.arrayOffset() + line.limit() - 1;
+            for (int i = from, j = to; i < j; i++, j--) {
+                char tmp = a[i];
+                a[i] = a[j];
+                a[j] = tmp;
+            }
+            for (int i = from; i < to; i++) {
+                if (Character.isLowSurrogate(a[i]) && Character.isHighSurrogate(a[i + 1])) {
+                    char tmp = a[i];
+                    a[i] = a[i + 1];
+                    a[++i] = tmp;
+                }
+            }
+            return line;
+        }
+    }
+
+    /*
+    In place: reverse the whole line, then every word back, so "java  is fun" -> "fun si  avaj" -> "fun is  java".
+    Same as reverseSentence: its split(" ") keeps empty words between double spaces and the trailing
+    empty words it drops would only become leading spaces, which trim() removes anyway.
+     */
+    private static final class ReverseWords implements LineOp {
+        @Override
+        public CharBuffer apply(CharBuffer line, CharBuffer scratch) {
+            char[] a = line.array();
+            int start = line.arrayOffset() + line.position();
+            int end = line.arrayOffset() + line.limit();
+            reverse(a, start, end - 1);
+            int wordStart = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || a[i] == ' ') {
+                    reverse(a, wordStart, i - 1);
+                    wordStart = i + 1;
+                }
+            }
+            //trim()
+            while (start < end && a[start] <= ' ') {
+                start++;
+            }
+            while (end > start && a[end - 1] <= ' ') {
+                end--;
+            }
+            return line.limit(end - line.arrayOffset()).position(start - line.arrayOffset());
+        }
+
+        private static void reverse(char[] a, int i, int j) {
+            for (; i < j; i++, j--) {
+                char tmp = a[i];
+                a[i] = a[j];
+                a[j] = tmp;
+            }
+        }
+    }
+
+    //maps without a reverse next to them: no line boundaries needed, each chunk is mapped in place and passed on
+    private static final class MapStage implements Sink {
+        private final CharMapper mapper;
+        private final Sink next;
+
+        MapStage(CharMapper mapper, Sink next) {
+            this.mapper = mapper;
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharBuffer chunk) throws IOException {
+            char[] a = chunk.array();
+            for (int i = chunk.arrayOffset() + chunk.position(), end = chunk.arrayOffset() + chunk.limit(); i < end; i++) {
+                a[i] = mapper.apply(a[i]);
+            }
+            next.accept(chunk);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            next.finish();
+        }
+    }
+
+    /*
+    Runs fused line ops over whole lines. Chunks are appended to 'work'; everything up to the last '\n'
+    is processed, the unfinished line stays in 'work' for the next chunk.
+     */
+    private final class LineStages implements Sink {
+        private final LineOp[] ops;
+        private final Sink next;
+        private CharBuffer work = CharBuffer.allocate(blockSize);
+
+        LineStages(LineOp[] ops, Sink next) {
+            this.ops = ops;
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharBuffer chunk) throws IOException {
+            if (work.remaining() < chunk.remaining()) {
+                //only when one line is longer than a block; doubling keeps the copying linear,
+                //the unfinished line is at most maxLineLength so this stays below maxLineLength + blockSize
+                int needed = work.position() + chunk.remaining();
+                int capacity = (int) Math.min(Math.max(2L * work.capacity(), needed), (long) maxLineLength + blockSize);
+                work = CharBuffer.allocate(Math.max(capacity, needed)).put(work.flip());
+            }
+            int from = work.position(); // the unfinished line from the last chunk
+            work.put(chunk);
+            int end = work.position();
+            while (end > from && work.get(end - 1) != '\n') {
+                end--;
+            }
+            if (end > from) {
+                process(0, end);
+                work.flip().position(end);
+                work.compact();
+            }
+            if (work.position() > maxLineLength) {
+                throw new IOException("Line longer than " + maxLineLength + " chars, see maxLineLength()");
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (work.position() > 0) {
+                process(0, work.position()); // last line without '\n'
+            }
+            work.clear();
+            next.finish();
+        }
+
+        private void process(int from, int to) throws IOException {
+            //pieces of about half a block end at a '\n', so their output fits a pooled buffer
+            int target = Math.max(1, blockSize / 2);
+            int pieces = (to - from + target - 1) / target;
+            if (pool != null) {
+                pieces = Math.max(pieces, Math.min(pool.getParallelism(), (to - from) / MIN_PIECE));
+            }
+            int[] bounds = new int[pieces + 1];
+            bounds[0] = from;
+            for (int i = 1; i < pieces; i++) {
+                int bound = Math.max(bounds[i - 1], from + (int) ((long) (to - from) * i / pieces));
+                while (bound < to && bound > from && work.get(bound - 1) != '\n') {
+                    bound++;
+                }
+                bounds[i] = bound;
+            }
+            bounds[pieces] = to;
+
+            if (pool == null || pieces == 1) {
+                for (int i = 0; i < pieces; i++) {
+                    emit(processPiece(bounds[i], bounds[i + 1]));
+                }
+                return;
+            }
+            List<ForkJoinTask<CharBuffer>> tasks = new ArrayList<>();
+            for (int i = 0; i < pieces; i++) {
+                int pieceFrom = bounds[i];
+                int pieceTo = bounds[i + 1];
+                tasks.add(pool.submit(() -> processPiece(pieceFrom, pieceTo)));
+            }
+            for (ForkJoinTask<CharBuffer> task : tasks) {
+                emit(task.join());
+            }
+        }
+
+        private void emit(CharBuffer out) throws IOException {
+            try {
+                if (out.flip().hasRemaining()) {
+                    next.accept(out);
+                }
+            } finally {
+                buffers.release(out);
+            }
+        }
+
+        //all lines in [from, to) through all ops; the lines are changed in place in 'work'
+        private CharBuffer processPiece(int from, int to) {
+            CharBuffer out = buffers.acquire(to - from);
+            CharBuffer scratch = buffers.acquire(to - from);
+            try {
+                char[] a = work.array();
+                int lineStart = from;
+                while (lineStart < to) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < to && a[lineEnd] != '\n') {
+                        lineEnd++;
+                    }
+                    CharBuffer current = work.slice(lineStart, lineEnd - lineStart);
+                    CharBuffer spare = scratch;
+                    for (LineOp op : ops) {
+                        spare.clear();
+                        CharBuffer result = op.apply(current, spare);
+                        if (result == spare) {
+                            spare = current;
+                        }
+                        current = result;
+                    }
+                    out.put(current);
+                    if (lineEnd < to) {
+                        out.put('\n');
+                    }
+                    lineStart = lineEnd + 1;
+                }
+                return out;
+            } finally {
+                buffers.release(scratch);
+            }
+        }
+    }
+
+    //run-length encoding with the open run carried across chunks
+    private final class Encode2 implements Sink {
+        private final Sink next;
+        private final char[] digits = new char[20];
+        private final CharBuffer out = buffers.acquire(Math.max(blockSize, 1 + digits.length)); // room for one run
+        private boolean started;
+        private char current;
+        private long count;
+
+        Encode2(Sink next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharBuffer chunk) throws IOException {
+            char[] a = chunk.array();
+            for (int i = chunk.arrayOffset() + chunk.position(), end = chunk.arrayOffset() + chunk.limit(); i < end; i++) {
+                if (started && a[i] == current) {
+                    count++;
+                } else {
+                    if (started) {
+                        emitRun();
+                    }
+                    started = true;
+                    current = a[i];
+                    count = 1;
+                }
+            }
+        }
+
+        private void emitRun() throws IOException {
+            if (out.remaining() < 1 + digits.length) {
+                flush();
+            }
+            char[] a = out.array();
+            int at = out.arrayOffset() + out.position();
+            a[at++] = current;
+            if (count < 10) {
+                a[at++] = (char) ('0' + count); // most runs
+            } else {
+                int n = digits.length;
+                long value = count;
+                do {
+                    digits[--n] = (char) ('0' + value % 10);
+                    value /= 10;
+                } while (value > 0);
+                System.arraycopy(digits, n, a, at, digits.length - n);
+                at += digits.length - n;
+            }
+            out.position(at - out.arrayOffset());
+        }
+
+        private void flush() throws IOException {
+            if (out.flip().hasRemaining()) {
+                next.accept(out);
+            }
+            out.clear();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (started) {
+                emitRun();
+            }
+            flush();
+            buffers.release(out);
+            next.finish();
+        }
+    }
+
+    //count of every char (capped at 2) and where it was first seen
+    private static final class FirstNonRepeated implements Sink {
+        private final byte[] counts = new byte[Character.MAX_VALUE + 1];
+        private final long[] firstAt = new long[Character.MAX_VALUE + 1];
+        private long position;
+
+        @Override
+        public void accept(CharBuffer chunk) {
+            char[] a = chunk.array();
+            for (int i = chunk.arrayOffset() + chunk.position(), end = chunk.arrayOffset() + chunk.limit(); i < end; i++) {
+                char c = a[i];
+                if (counts[c] == 0) {
+                    counts[c] = 1;
+                    firstAt[c] = position;
+                } else {
+                    counts[c] = 2;
+                }
+                position++;
+            }
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        char result() {
+            char result = '\0';
+            long best = Long.MAX_VALUE;
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (counts[c] == 1 && firstAt[c] < best) {
+                    best = firstAt[c];
+                    result = (char) c;
+                }
+            }
+            return result;
+        }
+    }
+
+    /*
+    Materialized chain vs pipeline: reverseSentence per line -> encode2 -> firstNonRepeatedChar.
+    encode2 with += is quadratic, so the materialized chain only gets a small sample; the pipeline
+    then streams the full size from a temp file.
+    args: [megabytes] [sample kilobytes]
+     */
+    public static void main(String[] args) throws IOException {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int sampleKb = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        String sample = randomText(sampleKb * 1024L);
+        long start = System.nanoTime();
+        char materialized = materializedChain(sample);
+        long materializedNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        char streamed = from(sample).reverseWords().encode2().firstNonRepeatedChar();
+        long pipelineNanos = System.nanoTime() - start;
+        System.out.printf("%d KB sample: materialized %.1f MB/s, pipeline %.1f MB/s, same result: %b%n", sampleKb,
+                sample.length() / 1e6 / (materializedNanos / 1e9), sample.length() / 1e6 / (pipelineNanos / 1e9),
+                materialized == streamed);
+
+        Path file = Files.createTempFile("pipeline", ".txt");
+        try {
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                for (long written = 0; written < megabytes * (1L << 20); written += 1 << 20) {
+                    writer.write(randomText(1 << 20));
+                }
+            }
+            for (boolean parallel : new boolean[]{false, true}) {
+                System.gc();
+                ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+                TextPipeline pipeline = from(file).reverseWords().encode2();
+                if (parallel) pipeline.parallel();
+                start = System.nanoTime();
+                char c = pipeline.firstNonRepeatedChar();
+                long nanos = System.nanoTime() - start;
+                long peak = 0;
+                for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (memoryPool.getType() == MemoryType.HEAP) peak += memoryPool.getPeakUsage().getUsed();
+                }
+                System.out.printf("%d MB file, parallel=%b: %.1f MB/s, peak heap %d MB (result %s)%n",
+                        megabytes, parallel, Files.size(file) / 1e6 / (nanos / 1e9), peak >> 20,
+                        c == '\0' ? "none" : String.valueOf(c));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    static char materializedChain(String text) {
+        StringBuilder reversed = new StringBuilder();
+        String[] lines = text.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) reversed.append('\n');
+            reversed.append(T03_ReverseSentence.reverseSentence(lines[i]));
+        }
+        return T04_FirstNonRepeatedChar.firstNonRepeatedChar(StringFrequency.encode2(reversed.toString()));
+    }
+
+    //lines of short words, runs of repeated letters so encode2 has something to do
+    static String randomText(long chars) {
+        Random random = new Random(chars);
+        StringBuilder text = new StringBuilder((int) chars);
+        while (text.length() < chars) {
+            int words = 1 + random.nextInt(12);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) text.append(' ');
+                for (int n = 1 + random.nextInt(8); n > 0; n--) {
+                    text.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            text.append('\n');
+        }
+        text.setLength((int) chars);
+        return text.toString();
+    }
+}
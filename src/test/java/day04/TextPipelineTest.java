@@ -0,0 +1,91 @@
+package day04;
+
+import day01.T01_StringReverse;
+import day01.T03_ReverseSentence;
+import day01.T04_FirstNonRepeatedChar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+public class TextPipelineTest {
+
+    //the materialized chain, one utility call per line
+    private static String perLine(String text, UnaryOperator<String> op) {
+        String[] lines = text.split("\n", -1);
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) result.append('\n');
+            result.append(op.apply(lines[i]));
+        }
+        return result.toString();
+    }
+
+    private static String trickyText(int seed, int chars) {
+        Random random = new Random(seed);
+        String alphabet = "aab  \n\t😀é"; // double spaces, tabs, a surrogate pair
+        StringBuilder text = new StringBuilder();
+        while (text.length() < chars) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            if (random.nextInt(500) == 0) text.append("x".repeat(3000)); // longer than the small blocks
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void sameResultAsMaterializedChain() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 4; seed++) {
+                String text = trickyText(seed, 200_000);
+                String reversedWords = perLine(text, T03_ReverseSentence::reverseSentence);
+                String expected = StringFrequency.encode2(perLine(reversedWords, T01_StringReverse::reverseString));
+                for (int blockSize : new int[]{2, 17, 1000, 64 * 1024}) {
+                    for (boolean parallel : new boolean[]{false, true}) {
+                        TextPipeline pipeline = TextPipeline.from(text).blockSize(blockSize).reverseWords().reverseChars().encode2();
+                        if (parallel) pipeline.parallel(pool);
+                        Assertions.assertEquals(expected, pipeline.collect(), "block " + blockSize + " parallel " + parallel);
+                    }
+                }
+                Assertions.assertEquals(T04_FirstNonRepeatedChar.firstNonRepeatedChar(expected),
+                        TextPipeline.from(text).reverseWords().reverseChars().encode2().parallel(pool).firstNonRepeatedChar());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void stagesAfterEncode2AndFusedMaps() throws IOException {
+        String text = "java is fun\naaabbcaaddbbb\n\n  hello  all  ";
+        String expected = perLine(StringFrequency.encode2(perLine(text, T03_ReverseSentence::reverseSentence)),
+                line -> T01_StringReverse.reverseString(line).toUpperCase());
+        StringWriter out = new StringWriter();
+        TextPipeline.from(text).blockSize(5).reverseWords().encode2().reverseChars()
+                .map(Character::toLowerCase).map(Character::toUpperCase).writeTo(out);
+        Assertions.assertEquals(expected, out.toString());
+
+        Assertions.assertEquals("fun is java", TextPipeline.from("java is fun").reverseWords().collect());
+        Assertions.assertEquals("", TextPipeline.from("").encode2().collect());
+        Assertions.assertEquals('b', TextPipeline.from("aabccddu").firstNonRepeatedChar());
+        Assertions.assertEquals('\0', TextPipeline.from("aabb").firstNonRepeatedChar());
+    }
+
+    @Test
+    public void longLinesAreBoundedAndMapsStream() throws IOException {
+        String line = "ab😀".repeat(400_000); // 1.6M chars without '\n', 64-char blocks
+        Assertions.assertEquals(T01_StringReverse.reverseString(line),
+                TextPipeline.from(line).blockSize(64).reverseChars().collect());
+
+        IOException e = Assertions.assertThrows(IOException.class,
+                () -> TextPipeline.from(line).blockSize(64).maxLineLength(10_000).reverseChars().collect());
+        Assertions.assertTrue(e.getMessage().contains("10000"), e.getMessage());
+        //a map on its own never buffers a line, so the limit doesn't apply
+        Assertions.assertEquals(line.toUpperCase(),
+                TextPipeline.from(line).blockSize(64).maxLineLength(10).map(Character::toUpperCase).collect());
+    }
+}
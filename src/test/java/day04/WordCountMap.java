@@ -0,0 +1,163 @@
+package day04;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+Open-addressing hash map from a word (UTF-8 bytes) to a long count.
+Words are copied once into one big byte[] arena, so counting never creates String objects,
+a String is only built when somebody asks for wordAt(i).
+Not thread-safe: every worker thread fills its own map and the maps are merged at the end.
+ */
+public class WordCountMap {
+    private int[] slots;        // entry index + 1, 0 = empty
+    private byte[] arena = new byte[1 << 16];
+    private int arenaLength;
+    private int[] offsets = new int[1024];
+    private byte[] lengths = new byte[1024]; // words are at most 255 bytes
+    private long[] hashes = new long[1024];
+    private long[] counts = new long[1024];
+    private int size;
+
+    public WordCountMap() {
+        slots = new int[2048];
+    }
+
+    //adds delta to the word in word[0..length), hash must be hash(word, length)
+    public void add(byte[] word, int length, long hash, long delta) {
+        int entry = findOrInsert(word, 0, length, hash);
+        counts[entry] += delta;
+    }
+
+    public void put(byte[] word, int length, long hash, long value) {
+        int entry = findOrInsert(word, 0, length, hash);
+        counts[entry] = value;
+    }
+
+    public long get(byte[] word, int length, long hash) {
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && sameWord(entry, word, 0, length)) {
+                return counts[entry];
+            }
+        }
+        return 0;
+    }
+
+    public long get(String word) {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > 255 ? 0 : get(bytes, bytes.length, hash(bytes, bytes.length));
+    }
+
+    //adds all counts of other into this map
+    public void addAll(WordCountMap other) {
+        for (int i = 0; i < other.size; i++) {
+            int entry = findOrInsert(other.arena, other.offsets[i], other.lengths[i] & 0xFF, other.hashes[i]);
+            counts[entry] += other.counts[i];
+        }
+    }
+
+    //copies one entry (word + count) of other into this map
+    public void putEntry(WordCountMap other, int entry) {
+        int own = findOrInsert(other.arena, other.offsets[entry], other.lengths[entry] & 0xFF, other.hashes[entry]);
+        counts[own] = other.counts[entry];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //entries are numbered 0..size()-1 in insertion order
+    public String wordAt(int entry) {
+        return new String(arena, offsets[entry], lengths[entry] & 0xFF, StandardCharsets.UTF_8);
+    }
+
+    public long countAt(int entry) {
+        return counts[entry];
+    }
+
+    public void setCountAt(int entry, long count) {
+        counts[entry] = count;
+    }
+
+    public long hashAt(int entry) {
+        return hashes[entry];
+    }
+
+    //byte order of two entries' words, same as String order for the words we count
+    public int compareWords(int a, int b) {
+        return Arrays.compareUnsigned(arena, offsets[a], offsets[a] + (lengths[a] & 0xFF),
+                arena, offsets[b], offsets[b] + (lengths[b] & 0xFF));
+    }
+
+    //FNV-1a, shared by the tokenizer so words are hashed while they are being copied
+    public static long hash(byte[] word, int length) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ (word[i] & 0xFF)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private int findOrInsert(byte[] word, int from, int length, long hash) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && sameWord(entry, word, from, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int entry = insert(word, from, length, hash);
+        slots[slot] = entry + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return entry;
+    }
+
+    private int insert(byte[] word, int from, int length, long hash) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        if (arenaLength + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + length));
+        }
+        System.arraycopy(word, from, arena, arenaLength, length);
+        offsets[size] = arenaLength;
+        lengths[size] = (byte) length;
+        hashes[size] = hash;
+        arenaLength += length;
+        return size++;
+    }
+
+    private boolean sameWord(int entry, byte[] word, int from, int length) {
+        return (lengths[entry] & 0xFF) == length
+                && Arrays.equals(arena, offsets[entry], offsets[entry] + length, word, from, from + length);
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread(hashes[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int spread(long hash) {
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,279 @@
+package day04;
+
+import day03.CountMinSketch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+Most frequent words of big text files (logs...), where encode1 only counts characters
+and Collectors.toMap fails on duplicate keys.
+
+ - the file is memory-mapped in chunks, worker threads take chunks one by one
+ - a word is a run of ASCII letters/digits or non-ASCII (UTF-8) bytes, ASCII is lower-cased,
+   words longer than 255 bytes are skipped
+ - words are hashed and copied into a small reused byte[] and counted in the worker's own WordCountMap,
+   no String per word
+ - worker maps are merged at the end and the top N come out of a bounded min-heap
+
+Approximate mode keeps a CountMinSketch per worker instead of a full map, so memory stays fixed
+no matter how many distinct words there are. Each worker remembers a few hundred candidate words,
+the sketches are added together and the candidates re-ranked with the merged sketch.
+ */
+public class WordFrequency {
+    static final int MAX_WORD = 255;
+    static final long CHUNK_SIZE = 64L << 20;
+
+    private final int threads;
+    private final long chunkSize;
+
+    public WordFrequency() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WordFrequency(int threads) {
+        this(threads, CHUNK_SIZE);
+    }
+
+    WordFrequency(int threads, long chunkSize) {
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    public static class WordCount {
+        private final String word;
+        private final long count;
+
+        public WordCount(String word, long count) {
+            this.word = word;
+            this.count = count;
+        }
+
+        public String word() {
+            return word;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return word + "=" + count;
+        }
+    }
+
+    //exact counts of every word in the file
+    public WordCountMap count(Path file) throws IOException {
+        List<WordCountMap> maps = runWorkers(file, WordCountMap::new, (map, word, length, hash) -> map.add(word, length, hash, 1));
+        WordCountMap result = maps.get(0);
+        for (int i = 1; i < maps.size(); i++) {
+            result.addAll(maps.get(i));
+        }
+        return result;
+    }
+
+    public List<WordCount> topWords(Path file, int n) throws IOException {
+        return topN(count(file), n);
+    }
+
+    //approximate counts in fixed memory, sketchWidth counters per row (bigger = fewer overestimates)
+    public List<WordCount> topWordsApproximate(Path file, int n, int sketchWidth) throws IOException {
+        int candidates = Math.max(64, 4 * n);
+        List<SketchCounter> counters = runWorkers(file, () -> new SketchCounter(sketchWidth, candidates),
+                SketchCounter::add);
+        CountMinSketch sketch = counters.get(0).sketch;
+        for (int i = 1; i < counters.size(); i++) {
+            sketch.merge(counters.get(i).sketch);
+        }
+        WordCountMap union = new WordCountMap();
+        for (SketchCounter counter : counters) {
+            union.addAll(counter.candidates);
+        }
+        for (int i = 0; i < union.size(); i++) {
+            //re-rank every candidate with the merged sketch, i.e. the count over all chunks
+            union.setCountAt(i, sketch.estimate(union.hashAt(i)));
+        }
+        return topN(union, n);
+    }
+
+    public static List<WordCount> topN(WordCountMap map, int n) {
+        List<WordCount> top = new ArrayList<>();
+        for (int entry : topEntries(map, n)) {
+            top.add(new WordCount(map.wordAt(entry), map.countAt(entry)));
+        }
+        return top;
+    }
+
+    //entry numbers of the n biggest counts, biggest first, ties in word order
+    static int[] topEntries(WordCountMap map, int n) {
+        //min-heap of entry numbers: the root is the weakest of the current top n
+        Comparator<Integer> weakestFirst = (a, b) -> {
+            int cmp = Long.compare(map.countAt(a), map.countAt(b));
+            return cmp != 0 ? cmp : map.compareWords(b, a);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(n + 1, weakestFirst);
+        for (int entry = 0; entry < map.size(); entry++) {
+            if (heap.size() < n) {
+                heap.add(entry);
+            } else if (n > 0 && weakestFirst.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    interface WordSink<T> {
+        void accept(T target, byte[] word, int length, long hash);
+    }
+
+    //each worker gets its own T and keeps taking chunks until none are left
+    private <T> List<T> runWorkers(Path file, Supplier<T> factory, WordSink<T> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            AtomicInteger nextChunk = new AtomicInteger();
+            int workers = Math.min(threads, chunks);
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<T>> futures = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    futures.add(pool.submit(() -> {
+                        T target = factory.get();
+                        byte[] word = new byte[MAX_WORD];
+                        for (int c = nextChunk.getAndIncrement(); c < chunks; c = nextChunk.getAndIncrement()) {
+                            countChunk(channel, size, c * chunkSize, Math.min(size, (c + 1) * chunkSize), word, target, sink);
+                        }
+                        return target;
+                    }));
+                }
+                List<T> results = new ArrayList<>();
+                for (Future<T> future : futures) {
+                    results.add(future.get());
+                }
+                return results;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /*
+    Counts the words that start in [start, end). The mapping starts one byte early to see whether
+    the chunk begins in the middle of a word (that word belongs to the previous chunk)
+    and ends MAX_WORD bytes late so the last word can be finished.
+     */
+    private static <T> void countChunk(FileChannel channel, long fileSize, long start, long end,
+                                       byte[] word, T target, WordSink<T> sink) {
+        if (start >= end) return;
+        long mapStart = Math.max(0, start - 1);
+        long mapEnd = Math.min(fileSize, end + MAX_WORD + 1);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int limit = buffer.limit();
+        int stop = (int) (end - mapStart);
+        int pos = (int) (start - mapStart);
+        if (start > 0 && isWordByte(buffer.get(pos - 1))) {
+            while (pos < limit && isWordByte(buffer.get(pos))) pos++;
+        }
+        while (pos < stop) {
+            byte b = buffer.get(pos);
+            if (!isWordByte(b)) {
+                pos++;
+                continue;
+            }
+            int length = 0;
+            long hash = WordCountMap.FNV_OFFSET;
+            while (pos < limit && isWordByte(b = buffer.get(pos))) {
+                if (length < MAX_WORD) {
+                    if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                    word[length] = b;
+                    hash = (hash ^ (b & 0xFF)) * WordCountMap.FNV_PRIME;
+                }
+                length++;
+                pos++;
+            }
+            if (length <= MAX_WORD) {
+                sink.accept(target, word, length, hash);
+            }
+        }
+    }
+
+    static boolean isWordByte(byte b) {
+        return b < 0 || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9');
+    }
+
+    //per-worker state for approximate mode: the sketch + a bounded set of candidate words
+    private static class SketchCounter {
+        final CountMinSketch sketch;
+        final int maxCandidates;
+        WordCountMap candidates = new WordCountMap();
+
+        SketchCounter(int width, int maxCandidates) {
+            this.sketch = new CountMinSketch(width);
+            this.maxCandidates = maxCandidates;
+        }
+
+        void add(byte[] word, int length, long hash) {
+            sketch.increment(hash);
+            candidates.put(word, length, hash, sketch.estimate(hash));
+            if (candidates.size() >= 2 * maxCandidates) {
+                //keep only the strongest half, the map's memory stays bounded
+                WordCountMap kept = new WordCountMap();
+                for (int entry : topEntries(candidates, maxCandidates)) {
+                    kept.putEntry(candidates, entry);
+                }
+                candidates = kept;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("words", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            String[] words = {"java", "is", "fun", "streams", "map", "filter", "Java", "collect"};
+            for (int i = 0; i < 200_000; i++) {
+                text.append(words[(i % 13) % words.length]).append(i % 10 == 0 ? "\n" : " ");
+            }
+            Files.writeString(file, text);
+            WordFrequency frequency = new WordFrequency();
+            System.out.println("exact       = " + frequency.topWords(file, 3));
+            System.out.println("approximate = " + frequency.topWordsApproximate(file, 3, 1024));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package day04;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class WordFrequencyTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void countsMatchHashMapAcrossChunkBoundaries() throws IOException {
+        String[] vocabulary = {"java", "Java", "is", "fun", "stream", "x", "héllo", "collectors2"};
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            //skewed: lower indexes much more frequent
+            int index = Math.min(vocabulary.length - 1, (int) Math.abs(random.nextGaussian() * 2.5));
+            text.append(vocabulary[index]).append(random.nextInt(5) == 0 ? ",\n" : " ");
+        }
+        text.append("z".repeat(300)).append(" end");   // too long, skipped
+        Path file = dir.resolve("words.txt");
+        Files.writeString(file, text);
+
+        Map<String, Long> expected = Arrays.stream(text.toString().split("[^\\p{Alnum}é]+"))
+                .filter(word -> !word.isEmpty() && word.length() <= WordFrequency.MAX_WORD)
+                .collect(Collectors.groupingBy(String::toLowerCase, Collectors.counting()));
+
+        WordCountMap counts = new WordFrequency(4, 1000).count(file); // tiny chunks to hit many boundaries
+        Assertions.assertEquals(expected.size(), counts.size());
+        expected.forEach((word, count) -> Assertions.assertEquals(count, counts.get(word), word));
+        Assertions.assertEquals(0, counts.get("z".repeat(300)));
+
+        List<String> expectedTop = expected.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(3).map(e -> e.getKey() + "=" + e.getValue()).toList();
+        Assertions.assertEquals(expectedTop.toString(), new WordFrequency(4, 1000).topWords(file, 3).toString());
+    }
+
+    @Test
+    public void approximateModeFindsHeavyHitters() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            text.append(i % 2 == 0 ? "error" : i % 5 == 0 ? "warn" : "id" + i).append(' ');
+        }
+        Path file = dir.resolve("log.txt");
+        Files.writeString(file, text);
+
+        List<WordFrequency.WordCount> top = new WordFrequency(4, 10_000).topWordsApproximate(file, 2, 4096);
+        Assertions.assertEquals("error", top.get(0).word());
+        Assertions.assertEquals("warn", top.get(1).word());
+        Assertions.assertTrue(top.get(0).count() >= 25_000); // count-min never underestimates
+        Assertions.assertTrue(top.get(1).count() >= 5_000);
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        Path file = Files.writeString(dir.resolve("empty.txt"), "");
+        Assertions.assertTrue(new WordFrequency().topWords(file, 5).isEmpty());
+    }
+}